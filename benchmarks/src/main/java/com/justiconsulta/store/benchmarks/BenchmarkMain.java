@@ -0,0 +1,26 @@
+package com.justiconsulta.store.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Punto de entrada del jar de benchmarks: igual que org.openjdk.jmh.Main, pero si no se indica otro
+ * formato escribe los resultados en JSON (target/jmh-result.json) para poder compararlos entre versiones.
+ */
+public final class BenchmarkMain {
+    static final String DEFAULT_RESULT_FILE = "target/jmh-result.json";
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(List.of(args));
+        if (!options.contains("-rf")) {
+            options.addAll(0, List.of("-rf", "json"));
+            if (!options.contains("-rff")) {
+                options.addAll(0, List.of("-rff", DEFAULT_RESULT_FILE));
+            }
+        }
+        org.openjdk.jmh.Main.main(options.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,82 @@
+package com.justiconsulta.store.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.justiconsulta.store.service.CourtDates;
+import com.justiconsulta.store.service.CourtPayloadExtractor;
+import com.justiconsulta.store.service.CourtProcessSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extracción de campos de las respuestas de la Rama Judicial: el snapshot que arma ApiClient, la fecha
+ * de última actuación que lee la detección de cambios, y como referencia el recorrido con readTree que
+ * se usaba antes del extractor en streaming.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CourtPayloadBenchmark {
+
+    @Param({SamplePayloads.NUMERO_RADICACION, SamplePayloads.NUMERO_RADICACION_MULTI})
+    public String payload;
+
+    private ObjectMapper objectMapper;
+    private CourtPayloadExtractor extractor;
+    private String body;
+    private String actuacionesBody;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        extractor = new CourtPayloadExtractor(objectMapper);
+        body = SamplePayloads.load(payload);
+        actuacionesBody = SamplePayloads.load(SamplePayloads.ACTUACIONES);
+    }
+
+    @Benchmark
+    public CourtProcessSnapshot processSnapshot() {
+        return CourtProcessSnapshot.parse(extractor, body);
+    }
+
+    @Benchmark
+    public Optional<OffsetDateTime> lastActionDate() {
+        return extractor.extract(body, CourtPayloadExtractor.FIRST_PROCESS_LAST_ACTION)
+                .flatMap(CourtDates::parse);
+    }
+
+    // Same three fields through the full JsonNode tree
+    @Benchmark
+    public void processSnapshotTree(Blackhole bh) throws Exception {
+        JsonNode first = objectMapper.readTree(body).path("procesos").path(0);
+        bh.consume(first.path("idProceso").asText(null));
+        bh.consume(CourtDates.parse(first.path("fechaUltimaActuacion").asText(null)));
+        bh.consume(first.path("despacho").asText(null));
+    }
+
+    // ProcessChangeDetectionService still reads actuaciones pages as a tree
+    @Benchmark
+    public void actuacionesTree(Blackhole bh) throws Exception {
+        for (JsonNode node : objectMapper.readTree(actuacionesBody).path("actuaciones")) {
+            bh.consume(CourtDates.parse(node.path("fechaActuacion").asText(null)));
+            bh.consume(node.path("actuacion").asText(""));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.justiconsulta.store.benchmarks;
+
+import com.justiconsulta.store.service.EmailTemplateService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Render de las plantillas de correo más frecuentes (nueva actuación, recordatorio, varias actuaciones)
+ * con argumentos de tamaño realista.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmailTemplateBenchmark {
+
+    private EmailTemplateService templates;
+    private String actuacionesHtml;
+
+    @Setup
+    public void setUp() {
+        templates = new EmailTemplateService("https://justiconsulta.example.com");
+        StringBuilder html = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            html.append("<li><strong>0500131030032019001230").append(i).append("</strong>: ")
+                    .append("Auto que ordena seguir adelante la ejecución</li>");
+        }
+        actuacionesHtml = html.toString();
+    }
+
+    @Benchmark
+    public String newActuation() {
+        return templates.getNewActuationEmailTemplate("Persona de Prueba", "05001310300320190012300",
+                "Auto decreta medida cautelar", "2024-09-18");
+    }
+
+    @Benchmark
+    public String actuationReminder() {
+        return templates.getActuationReminderEmailTemplate("Persona de Prueba", 7);
+    }
+
+    @Benchmark
+    public String multipleActuations() {
+        return templates.getMultipleActuationsEmailTemplate("Persona de Prueba", actuacionesHtml);
+    }
+}
@@ -0,0 +1,52 @@
+package com.justiconsulta.store.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.justiconsulta.store.service.CourtPayloadExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * idProceso que LegalProcessServiceImpl guarda en el historial de cada consulta. Con las respuestas de
+ * NumeroRadicacion ningún candidato está en la raíz, así que se mide el peor caso: se recorre el
+ * objeto raíz completo buscando un escalar numérico.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExtractIdProcesoBenchmark {
+
+    @Param({SamplePayloads.NUMERO_RADICACION, SamplePayloads.NUMERO_RADICACION_MULTI, "flat"})
+    public String payload;
+
+    private CourtPayloadExtractor extractor;
+    private String body;
+
+    @Setup
+    public void setUp() {
+        extractor = new CourtPayloadExtractor(new ObjectMapper());
+        // "flat": respuesta con idProceso en la raíz, que se devuelve sin pasar al respaldo de escalares
+        body = "flat".equals(payload)
+                ? "{\"idProceso\":128736452,\"llaveProceso\":\"05001310300320190012300\",\"esPrivado\":false}"
+                : SamplePayloads.load(payload);
+    }
+
+    @Benchmark
+    public Optional<String> extractIdProceso() {
+        return extractor.extractIdProceso(body);
+    }
+}
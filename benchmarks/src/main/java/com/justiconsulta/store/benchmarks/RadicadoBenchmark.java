@@ -0,0 +1,110 @@
+package com.justiconsulta.store.benchmarks;
+
+import com.justiconsulta.store.service.Radicado;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Validación de numeroRadicacion: String.matches (regex compilada en cada llamada, como antes),
+ * Pattern precompilado y {@link Radicado#isValid}. Las entradas mezclan radicados válidos, idProceso
+ * cortos y texto inválido, como llegan a getActuaciones/getProcessDetail.
+ * <p>
+ * Con -prof gc se ve además la diferencia de asignación por operación.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RadicadoBenchmark {
+
+    private static final Pattern TWENTY_THREE_DIGITS = Pattern.compile("\\d{23}");
+    private static final int INPUTS = 1024;
+
+    private String[] inputs;
+    private String[] radicados;
+    private Map<String, String> byString;
+    private Map<Radicado, String> byRadicado;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        inputs = new String[INPUTS];
+        radicados = new String[INPUTS];
+        byString = new HashMap<>();
+        byRadicado = new HashMap<>();
+        for (int i = 0; i < INPUTS; i++) {
+            String radicado = randomDigits(random, Radicado.LENGTH);
+            radicados[i] = radicado;
+            String idProceso = Long.toString(100_000_000L + random.nextLong(900_000_000L));
+            byString.put(radicado, idProceso);
+            byRadicado.put(Radicado.parse(radicado).orElseThrow(), idProceso);
+            inputs[i] = switch (i % 4) {
+                case 0, 1 -> radicado;
+                case 2 -> idProceso;
+                default -> radicado.substring(0, 10) + "-" + radicado.substring(11);
+            };
+        }
+    }
+
+    @Benchmark
+    public void stringMatches(Blackhole bh) {
+        for (String input : inputs) {
+            bh.consume(input.matches("\\d{23}"));
+        }
+    }
+
+    @Benchmark
+    public void precompiledPattern(Blackhole bh) {
+        for (String input : inputs) {
+            bh.consume(TWENTY_THREE_DIGITS.matcher(input).matches());
+        }
+    }
+
+    @Benchmark
+    public void radicadoIsValid(Blackhole bh) {
+        for (String input : inputs) {
+            bh.consume(Radicado.isValid(input));
+        }
+    }
+
+    // Lookup as ProcessIdResolver did before (String key) versus parsing into the packed key first
+    @Benchmark
+    public void lookupByString(Blackhole bh) {
+        for (String radicado : radicados) {
+            bh.consume(byString.get(radicado));
+        }
+    }
+
+    @Benchmark
+    public void lookupByPackedKey(Blackhole bh) {
+        for (String radicado : radicados) {
+            bh.consume(byRadicado.get(Radicado.parse(radicado).orElseThrow()));
+        }
+    }
+
+    private static String randomDigits(SplittableRandom random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('0' + random.nextInt(10));
+        }
+        return new String(chars);
+    }
+}
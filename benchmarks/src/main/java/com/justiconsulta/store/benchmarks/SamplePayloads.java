@@ -0,0 +1,29 @@
+package com.justiconsulta.store.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Respuestas de muestra de la API de la Rama Judicial (resources/payloads), anonimizadas pero con la
+ * misma forma que las reales: /Procesos/Consulta/NumeroRadicacion con uno y con varios procesos, y
+ * una página de actuaciones.
+ */
+final class SamplePayloads {
+    static final String NUMERO_RADICACION = "numero-radicacion.json";
+    static final String NUMERO_RADICACION_MULTI = "numero-radicacion-multi.json";
+    static final String ACTUACIONES = "actuaciones.json";
+
+    private SamplePayloads() {
+    }
+
+    static String load(String name) {
+        try (InputStream in = SamplePayloads.class.getResourceAsStream("/payloads/" + name)) {
+            if (in == null) throw new IllegalArgumentException("Payload de muestra inexistente: " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.justiconsulta.store.benchmarks;
+
+import com.justiconsulta.store.security.JwkService;
+import com.justiconsulta.store.security.TokenValidationResult;
+import com.justiconsulta.store.security.TokenValidator;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TokenValidator.validate con tokens firmados en el setup con llaves generadas: HS256 con un secreto
+ * aleatorio y RS256/ES256 con un JWKS fijo (sin red). Con verifiedCacheEntries=0 cada llamada verifica
+ * la firma; con la cache activa se mide el camino habitual de una sesión ya vista.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenValidatorBenchmark {
+
+    private static final String SUPABASE_URL = "https://bench.supabase.co";
+    private static final int TOKENS = 256;
+
+    @Param({"HS256", "RS256", "ES256"})
+    public String algorithm;
+
+    @Param({"0", "10000"})
+    public int verifiedCacheEntries;
+
+    private TokenValidator validator;
+    private String[] tokens;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        byte[] secretBytes = new byte[32];
+        new SecureRandom().nextBytes(secretBytes);
+        String hmacSecret = HexFormat.of().formatHex(secretBytes);
+        JWSSigner signer;
+        JWSHeader header;
+        JWKSet jwkSet;
+        switch (algorithm) {
+            case "HS256" -> {
+                signer = new MACSigner(hmacSecret.getBytes(StandardCharsets.UTF_8));
+                header = new JWSHeader.Builder(JWSAlgorithm.HS256).build();
+                jwkSet = new JWKSet();
+            }
+            case "RS256" -> {
+                RSAKey key = new RSAKeyGenerator(2048).keyID("bench-rsa").algorithm(JWSAlgorithm.RS256).generate();
+                signer = new RSASSASigner(key);
+                header = new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build();
+                jwkSet = new JWKSet(key.toPublicJWK());
+            }
+            case "ES256" -> {
+                ECKey key = new ECKeyGenerator(Curve.P_256).keyID("bench-ec").algorithm(JWSAlgorithm.ES256).generate();
+                signer = new ECDSASigner(key);
+                header = new JWSHeader.Builder(JWSAlgorithm.ES256).keyID(key.getKeyID()).build();
+                jwkSet = new JWKSet(key.toPublicJWK());
+            }
+            default -> throw new IllegalArgumentException("Algoritmo no soportado: " + algorithm);
+        }
+
+        validator = new TokenValidator(new FixedJwkService(jwkSet), SUPABASE_URL, hmacSecret, verifiedCacheEntries);
+
+        // Distinct tokens, so the verified-token cache sees as many sessions as a busy instance would
+        Instant now = Instant.now();
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                    .subject(UUID.randomUUID().toString())
+                    .issuer(SUPABASE_URL + "/auth/v1")
+                    .claim("email", "usuario" + i + "@example.com")
+                    .claim("role", "authenticated")
+                    .issueTime(Date.from(now))
+                    .expirationTime(Date.from(now.plusSeconds(24 * 3600)))
+                    .build();
+            SignedJWT jwt = new SignedJWT(header, claims);
+            jwt.sign(signer);
+            tokens[i] = jwt.serialize();
+        }
+        if (!validator.validate(tokens[0]).isValid()) {
+            throw new IllegalStateException("El token de muestra no valida con " + algorithm);
+        }
+    }
+
+    @Benchmark
+    public TokenValidationResult validate() {
+        String token = tokens[next];
+        next = (next + 1) % TOKENS;
+        return validator.validate(token);
+    }
+
+    // Serves the generated public keys instead of fetching the Supabase JWKS
+    private static final class FixedJwkService extends JwkService {
+        private final JWKSet jwkSet;
+
+        FixedJwkService(JWKSet jwkSet) {
+            super(SUPABASE_URL, 3600, 300, 30, 5000);
+            this.jwkSet = jwkSet;
+        }
+
+        @Override
+        public JWKSet getJwkSet(boolean forceRefresh) {
+            return jwkSet;
+        }
+    }
+}
@@ -1,20 +1,120 @@
 package com.justiconsulta.store.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Locale;
+
 @Configuration
 public class RestTemplateConfig {
 
+    // apache = pool HTTP/1.1 con límites por ruta y métricas, jdk = java.net.http (HTTP/2), simple = HttpURLConnection
+    @Value("${api.external.http.client:apache}")
+    private String clientType;
+
+    @Value("${api.external.http.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    @Value("${api.external.http.read-timeout-ms:10000}")
+    private int readTimeoutMs;
+
+    @Value("${api.external.http.pool.max-total:50}")
+    private int maxTotal;
+
+    @Value("${api.external.http.pool.max-per-route:20}")
+    private int maxPerRoute;
+
+    @Value("${api.external.http.pool.keep-alive-seconds:60}")
+    private long keepAliveSeconds;
+
+    @Value("${api.external.http.pool.acquire-timeout-ms:2000}")
+    private int acquireTimeoutMs;
+
+    // Un solo java.net.http.HttpClient (y su pool) para AsyncApiClient y, con client=jdk, para el RestTemplate
+    @Bean
+    public HttpClient courtHttpClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+    }
+
+    @Bean
+    public ClientHttpRequestFactory clientHttpRequestFactory(MeterRegistry meterRegistry, HttpClient courtHttpClient) {
+        return switch (clientType.trim().toLowerCase(Locale.ROOT)) {
+            case "apache" -> apacheRequestFactory(meterRegistry);
+            case "jdk" -> jdkRequestFactory(courtHttpClient);
+            case "simple" -> simpleRequestFactory();
+            // Un error de tipeo no debe cambiar el cliente en silencio: falla al arrancar
+            default -> throw new IllegalStateException("api.external.http.client must be one of apache, jdk, simple but was '"
+                    + clientType + "'");
+        };
+    }
+
     @Bean
     @ConditionalOnMissingBean(RestTemplate.class)
-    public RestTemplate restTemplate() {
+    public RestTemplate restTemplate(ClientHttpRequestFactory clientHttpRequestFactory) {
+        return new RestTemplate(clientHttpRequestFactory);
+    }
+
+    private ClientHttpRequestFactory apacheRequestFactory(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                        .build())
+                .build();
+
+        // Pool stats (leased/available/pending/max) show how often connections and TLS sessions are reused
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "court-api").bindTo(meterRegistry);
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(acquireTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> TimeValue.ofSeconds(keepAliveSeconds))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(keepAliveSeconds))
+                .build();
+
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    // HttpClient keeps its own connection pool; keep-alive is tuned with -Djdk.httpclient.keepalive.timeout
+    private ClientHttpRequestFactory jdkRequestFactory(HttpClient httpClient) {
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+        factory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        return factory;
+    }
+
+    private ClientHttpRequestFactory simpleRequestFactory() {
         SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(5_000);
-        factory.setReadTimeout(10_000);
-        return new RestTemplate(factory);
+        factory.setConnectTimeout(connectTimeoutMs);
+        factory.setReadTimeout(readTimeoutMs);
+        return factory;
     }
 }
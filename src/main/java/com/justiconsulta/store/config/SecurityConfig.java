@@ -1,6 +1,7 @@
 package com.justiconsulta.store.config;
 
 import com.justiconsulta.store.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -30,6 +31,8 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll() // Allow CORS preflight
+                        // Re-dispatch of CompletableFuture handlers (/dossier, /public): the request was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/auth/**", "/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html", "/public/**").permitAll()
                         .requestMatchers("/api/**").authenticated()
                 );
@@ -47,6 +50,8 @@ public class SecurityConfig {
         config.addAllowedMethod(CorsConfiguration.ALL);
         config.setAllowCredentials(false); // obligatorio si usas "*"
         config.addExposedHeader("Authorization");
+        config.addExposedHeader("Age"); // antigüedad de las respuestas servidas desde la caché
+        config.addExposedHeader("X-Next-Cursor"); // paginación del historial
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", config);
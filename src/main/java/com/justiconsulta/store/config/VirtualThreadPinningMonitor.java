@@ -0,0 +1,81 @@
+package com.justiconsulta.store.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Diagnóstico de hilos virtuales "pinned" (bloqueados sobre su hilo portador, p. ej. dentro de un
+ * bloque synchronized que hace I/O). Escucha el evento JFR jdk.VirtualThreadPinned, lo registra en el log
+ * con los primeros frames de la pila y lo publica como métrica. Solo se activa en modo de hilos virtuales.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 8;
+
+    private final Duration threshold;
+    private final Counter pinnedCounter;
+    private final Timer pinnedTimer;
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(@Value("${app.threads.pinning.threshold-ms:20}") long thresholdMs,
+                                       MeterRegistry meterRegistry) {
+        this.threshold = Duration.ofMillis(thresholdMs);
+        this.pinnedCounter = Counter.builder("jvm.threads.virtual.pinned").register(meterRegistry);
+        this.pinnedTimer = Timer.builder("jvm.threads.virtual.pinned.duration").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            stream = new RecordingStream();
+            stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+            stream.onEvent(PINNED_EVENT, this::onPinned);
+            stream.startAsync();
+            log.info("Monitor de hilos virtuales pinned activo (umbral {} ms)", threshold.toMillis());
+        } catch (Exception e) {
+            log.warn("No se pudo iniciar el monitor JFR de hilos virtuales: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedCounter.increment();
+        pinnedTimer.record(event.getDuration());
+        StringBuilder frames = new StringBuilder();
+        if (event.getStackTrace() != null) {
+            List<RecordedFrame> stack = event.getStackTrace().getFrames();
+            for (int i = 0; i < Math.min(LOGGED_FRAMES, stack.size()); i++) {
+                RecordedFrame frame = stack.get(i);
+                frames.append("\n    at ")
+                        .append(frame.getMethod().getType().getName()).append('.')
+                        .append(frame.getMethod().getName())
+                        .append(':').append(frame.getLineNumber());
+            }
+        }
+        log.warn("Hilo virtual pinned durante {} ms{}", event.getDuration().toMillis(), frames);
+    }
+}
@@ -2,11 +2,14 @@ package com.justiconsulta.store.controller;
 
 import com.justiconsulta.store.dto.response.HistoryResponseDto;
 import com.justiconsulta.store.dto.response.LegalProcessResponseDto;
+import com.justiconsulta.store.service.CourtEndpoint;
 import com.justiconsulta.store.service.contract.ILegalProcessService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/legal-processes")
@@ -32,9 +35,14 @@ public class LegalProcessController {
         return legalProcessService.associateProcessToUser(numeroRadicacion);
     }
 
+    // Paginado por cursor: el header X-Next-Cursor trae el valor para la siguiente página
     @GetMapping("/history")
-    public ResponseEntity<List<HistoryResponseDto>> getUserHistory() {
-        return legalProcessService.getUserHistory();
+    public ResponseEntity<List<HistoryResponseDto>> getUserHistory(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", required = false, defaultValue = "50") int limit,
+            @RequestParam(name = "includeResult", required = false, defaultValue = "false") boolean includeResult
+    ) {
+        return legalProcessService.getUserHistory(cursor, limit, includeResult);
     }
 
     @GetMapping("/{numeroRadicacion}")
@@ -47,38 +55,73 @@ public class LegalProcessController {
         return legalProcessService.getLegalProcess(numeroRadicacion, soloActivos, pagina, documentNumberHeader);
     }
 
+    // Asíncrono: el hilo de Tomcat se libera mientras responde la API de la Rama Judicial
     @GetMapping("/public/{numeroRadicacion}")
-    public ResponseEntity<?> publicGetLegalProcess(
+    public CompletableFuture<ResponseEntity<?>> publicGetLegalProcess(
             @PathVariable String numeroRadicacion,
             @RequestParam(name = "SoloActivos", required = false, defaultValue = "false") boolean soloActivos,
             @RequestParam(name = "pagina", required = false, defaultValue = "1") int pagina
     ) {
-        return legalProcessService.publicGetLegalProcess(numeroRadicacion, soloActivos, pagina);
+        return legalProcessService.publicGetLegalProcessAsync(numeroRadicacion, soloActivos, pagina);
     }
 
+    // stream=true copia el cuerpo de la Rama Judicial directo a la respuesta, sin cargarlo completo en memoria
     @GetMapping("/{idProceso}/detail")
-    public ResponseEntity<?> getProcessDetail(@PathVariable String idProceso) {
+    public ResponseEntity<?> getProcessDetail(
+            @PathVariable String idProceso,
+            @RequestParam(name = "stream", required = false, defaultValue = "false") boolean stream,
+            HttpServletResponse response
+    ) {
+        if (stream) {
+            return legalProcessService.streamProcessResource(CourtEndpoint.PROCESS_DETAIL, idProceso, 1, response);
+        }
         return legalProcessService.getProcessDetail(idProceso);
     }
 
     @GetMapping("/{idProceso}/subjects")
     public ResponseEntity<?> getProcessSubjects(
             @PathVariable String idProceso,
-            @RequestParam(name = "pagina", required = false, defaultValue = "1") int pagina
+            @RequestParam(name = "pagina", required = false, defaultValue = "1") int pagina,
+            @RequestParam(name = "stream", required = false, defaultValue = "false") boolean stream,
+            HttpServletResponse response
     ) {
+        if (stream) {
+            return legalProcessService.streamProcessResource(CourtEndpoint.PROCESS_SUBJECTS, idProceso, pagina, response);
+        }
         return legalProcessService.getProcessSubjects(idProceso, pagina);
     }
 
     @GetMapping("/{idProceso}/documents")
-    public ResponseEntity<?> getProcessDocuments(@PathVariable String idProceso) {
+    public ResponseEntity<?> getProcessDocuments(
+            @PathVariable String idProceso,
+            @RequestParam(name = "stream", required = false, defaultValue = "false") boolean stream,
+            HttpServletResponse response
+    ) {
+        if (stream) {
+            return legalProcessService.streamProcessResource(CourtEndpoint.PROCESS_DOCUMENTS, idProceso, 1, response);
+        }
         return legalProcessService.getProcessDocuments(idProceso);
     }
 
     @GetMapping("/{idProceso}/actuaciones")
     public ResponseEntity<?> getProcessActuaciones(
             @PathVariable String idProceso,
-            @RequestParam(name = "pagina", required = false, defaultValue = "1") int pagina
+            @RequestParam(name = "pagina", required = false, defaultValue = "1") int pagina,
+            @RequestParam(name = "stream", required = false, defaultValue = "false") boolean stream,
+            HttpServletResponse response
     ) {
+        if (stream) {
+            return legalProcessService.streamProcessResource(CourtEndpoint.PROCESS_ACTUACIONES, idProceso, pagina, response);
+        }
         return legalProcessService.getProcessActuaciones(idProceso, pagina);
     }
+
+    // Detalle, sujetos, documentos y actuaciones en un solo documento, consultados en paralelo
+    @GetMapping("/{idProceso}/dossier")
+    public CompletableFuture<ResponseEntity<?>> getProcessDossier(
+            @PathVariable String idProceso,
+            @RequestParam(name = "pagina", required = false, defaultValue = "1") int pagina
+    ) {
+        return legalProcessService.getProcessDossier(idProceso, pagina);
+    }
 }
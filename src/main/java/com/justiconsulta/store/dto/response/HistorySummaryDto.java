@@ -0,0 +1,23 @@
+package com.justiconsulta.store.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+// Proyección de history para listados: result solo viene cuando se pidió explícitamente
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistorySummaryDto {
+    private UUID id;
+    private String legalProcessId;
+    private UUID activitySeriesId;
+    private OffsetDateTime date;
+    private String result;
+    private String resultHash;
+    private OffsetDateTime createdAt;
+    private String userDocumentNumber;
+}
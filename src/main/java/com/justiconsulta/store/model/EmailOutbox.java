@@ -0,0 +1,60 @@
+package com.justiconsulta.store.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Correo pendiente de envío. Las peticiones solo insertan aquí; {@code EmailOutboxService} lo envía
+ * por SMTP en segundo plano con reintentos.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_status_next", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_email_outbox_dedupe", columnList = "dedupe_key, created_at")
+})
+@Data @NoArgsConstructor @AllArgsConstructor
+public class EmailOutbox {
+
+    public enum Status { PENDING, SENDING, SENT, FAILED }
+
+    @Id
+    @GeneratedValue(generator = "UUID")
+    @org.hibernate.annotations.GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    @Column(columnDefinition = "uuid", updatable = false, nullable = false)
+    private UUID id;
+
+    @Column(name = "recipient", length = 255, nullable = false)
+    private String recipient;
+
+    @Column(name = "subject", length = 255, nullable = false)
+    private String subject;
+
+    @Column(name = "html_body", columnDefinition = "text", nullable = false)
+    private String htmlBody;
+
+    // SHA-256 of recipient + subject + body: the same email to the same recipient is queued only once per window
+    @Column(name = "dedupe_key", length = 64, nullable = false)
+    private String dedupeKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 16, nullable = false)
+    private Status status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    // PENDING: earliest next try; SENDING: end of the claim lease
+    @Column(name = "next_attempt_at", nullable = false)
+    private OffsetDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "text")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private OffsetDateTime sentAt;
+}
@@ -6,7 +6,9 @@ import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "history")
+@Table(name = "history", indexes = {
+        @Index(name = "idx_history_user_date_id", columnList = "user_document_number, date DESC, id DESC")
+})
 @Data @NoArgsConstructor @AllArgsConstructor
 public class History {
     @Id
@@ -29,6 +31,10 @@ public class History {
     @Column(name = "result", columnDefinition = "text")
     private String result;
 
+    // SHA-256 of the body stored in history_payload; new rows use this instead of result
+    @Column(name = "result_hash", length = 64)
+    private String resultHash;
+
     @Column(name = "created_at")
     private OffsetDateTime createdAt;
 
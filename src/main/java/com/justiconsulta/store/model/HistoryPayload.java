@@ -0,0 +1,27 @@
+package com.justiconsulta.store.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.OffsetDateTime;
+
+/**
+ * Cuerpo de respuesta del historial guardado una sola vez por contenido.
+ * hash = SHA-256 (hex) del cuerpo normalizado; content = el mismo cuerpo comprimido con gzip.
+ */
+@Entity
+@Table(name = "history_payload")
+@Data @NoArgsConstructor @AllArgsConstructor
+public class HistoryPayload {
+    @Id
+    @Column(name = "hash", length = 64, updatable = false, nullable = false)
+    private String hash;
+
+    @Column(name = "content", columnDefinition = "bytea", nullable = false)
+    private byte[] content;
+
+    @Column(name = "original_length", nullable = false)
+    private int originalLength;
+
+    @Column(name = "created_at")
+    private OffsetDateTime createdAt;
+}
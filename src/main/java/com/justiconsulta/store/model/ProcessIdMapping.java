@@ -0,0 +1,24 @@
+package com.justiconsulta.store.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.OffsetDateTime;
+
+/**
+ * Relación numeroRadicacion -> idProceso de la Rama Judicial.
+ * El idProceso asignado a un radicado no cambia, por lo que se resuelve una sola vez y se persiste.
+ */
+@Entity
+@Table(name = "legal_process_id_mapping")
+@Data @NoArgsConstructor @AllArgsConstructor
+public class ProcessIdMapping {
+    @Id
+    @Column(name = "numero_radicacion", length = 23, updatable = false, nullable = false)
+    private String numeroRadicacion;
+
+    @Column(name = "id_proceso", nullable = false)
+    private String idProceso;
+
+    @Column(name = "created_at")
+    private OffsetDateTime createdAt;
+}
@@ -7,7 +7,9 @@ import java.time.OffsetDateTime;
  * Configuración de recordatorios automáticos de procesos para cada usuario
  */
 @Entity
-@Table(name = "reminder_configuration")
+@Table(name = "reminder_configuration", indexes = {
+        @Index(name = "idx_reminder_config_due", columnList = "enabled, next_due_at")
+})
 public class ReminderConfiguration {
 
     @Id
@@ -60,6 +62,13 @@ public class ReminderConfiguration {
     @Column(name = "last_reminder_sent")
     private OffsetDateTime lastReminderSent;
 
+    /**
+     * Próximo instante en que corresponde enviar el recordatorio (null si no hay ninguno programado).
+     * Se recalcula al cambiar la configuración y después de cada envío.
+     */
+    @Column(name = "next_due_at")
+    private OffsetDateTime nextDueAt;
+
     /**
      * Fecha de creación de la configuración
      */
@@ -158,6 +167,14 @@ public class ReminderConfiguration {
         this.lastReminderSent = lastReminderSent;
     }
 
+    public OffsetDateTime getNextDueAt() {
+        return nextDueAt;
+    }
+
+    public void setNextDueAt(OffsetDateTime nextDueAt) {
+        this.nextDueAt = nextDueAt;
+    }
+
     public OffsetDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,54 @@
+package com.justiconsulta.store.repository;
+
+import com.justiconsulta.store.model.EmailOutbox;
+import com.justiconsulta.store.model.EmailOutbox.Status;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, UUID> {
+
+    boolean existsByDedupeKeyAndCreatedAtAfter(String dedupeKey, OffsetDateTime after);
+
+    long countByStatus(Status status);
+
+    @Query("SELECT e.id FROM EmailOutbox e WHERE e.status = com.justiconsulta.store.model.EmailOutbox.Status.PENDING " +
+            "AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt")
+    List<UUID> findDueIds(@Param("now") OffsetDateTime now, Pageable pageable);
+
+    // Conditional update: only one worker (or instance) wins each row
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = com.justiconsulta.store.model.EmailOutbox.Status.SENDING, e.nextAttemptAt = :leaseUntil " +
+            "WHERE e.id = :id AND e.status = com.justiconsulta.store.model.EmailOutbox.Status.PENDING")
+    int claim(@Param("id") UUID id, @Param("leaseUntil") OffsetDateTime leaseUntil);
+
+    // One UPDATE for every message of a batch that the SMTP server accepted
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = com.justiconsulta.store.model.EmailOutbox.Status.SENT, e.sentAt = :now, " +
+            "e.attempts = e.attempts + 1, e.lastError = NULL WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<UUID> ids, @Param("now") OffsetDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.attempts = e.attempts + 1, e.nextAttemptAt = :nextAttemptAt, " +
+            "e.lastError = :error WHERE e.id = :id")
+    int markAttemptFailed(@Param("id") UUID id, @Param("status") Status status,
+                          @Param("nextAttemptAt") OffsetDateTime nextAttemptAt, @Param("error") String error);
+
+    // Rows left in SENDING by a crashed worker go back to the queue once their lease expires
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = com.justiconsulta.store.model.EmailOutbox.Status.PENDING " +
+            "WHERE e.status = com.justiconsulta.store.model.EmailOutbox.Status.SENDING AND e.nextAttemptAt < :now")
+    int releaseExpiredLeases(@Param("now") OffsetDateTime now);
+}
@@ -0,0 +1,7 @@
+package com.justiconsulta.store.repository;
+
+import com.justiconsulta.store.model.HistoryPayload;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface HistoryPayloadRepository extends JpaRepository<HistoryPayload, String> {
+}
@@ -1,12 +1,35 @@
 package com.justiconsulta.store.repository;
 
+import com.justiconsulta.store.dto.response.HistorySummaryDto;
 import com.justiconsulta.store.model.History;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
 
 public interface HistoryRepository extends JpaRepository<History, UUID> {
 
+    // Keyset pagination on (date, id) backed by idx_history_user_date_id; result only when includeResult = true
+    @Query("SELECT new com.justiconsulta.store.dto.response.HistorySummaryDto(h.id, h.legalProcessId, h.activitySeriesId, h.date, " +
+            "CASE WHEN :includeResult = true THEN h.result ELSE NULL END, h.resultHash, h.createdAt, h.userDocumentNumber) " +
+            "FROM History h WHERE h.userDocumentNumber = :documentNumber " +
+            "ORDER BY h.date DESC, h.id DESC")
+    List<HistorySummaryDto> findFirstPage(@Param("documentNumber") String documentNumber,
+                                          @Param("includeResult") boolean includeResult,
+                                          Pageable pageable);
 
-    List<History> findByUserDocumentNumberOrderByDateDesc(String userDocumentNumber);
+    @Query("SELECT new com.justiconsulta.store.dto.response.HistorySummaryDto(h.id, h.legalProcessId, h.activitySeriesId, h.date, " +
+            "CASE WHEN :includeResult = true THEN h.result ELSE NULL END, h.resultHash, h.createdAt, h.userDocumentNumber) " +
+            "FROM History h WHERE h.userDocumentNumber = :documentNumber " +
+            "AND (h.date < :date OR (h.date = :date AND h.id < :id)) " +
+            "ORDER BY h.date DESC, h.id DESC")
+    List<HistorySummaryDto> findPageAfter(@Param("documentNumber") String documentNumber,
+                                          @Param("date") OffsetDateTime date,
+                                          @Param("id") UUID id,
+                                          @Param("includeResult") boolean includeResult,
+                                          Pageable pageable);
 }
@@ -19,4 +19,10 @@ public interface LegalProcessRepository extends JpaRepository<LegalProcess, UUID
     Optional<LegalProcess> findById(LegalProcess.LegalProcessId legalProcessId);
 
     List<LegalProcess> findByIdUserDocumentNumber(String userDocumentNumber);
+
+    // Only users that still track the process (the association lives in user_legal_processes)
+    @Query("SELECT p FROM LegalProcess p JOIN FETCH p.user WHERE p.id.id = :processId AND EXISTS ("
+            + "SELECT 1 FROM UserLegalProcess u WHERE u.id.legalProcessId = p.id.id "
+            + "AND u.id.userDocumentNumber = p.id.userDocumentNumber)")
+    List<LegalProcess> findSubscribersByProcessId(@Param("processId") String processId);
 }
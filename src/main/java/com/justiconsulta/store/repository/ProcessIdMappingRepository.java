@@ -0,0 +1,7 @@
+package com.justiconsulta.store.repository;
+
+import com.justiconsulta.store.model.ProcessIdMapping;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ProcessIdMappingRepository extends JpaRepository<ProcessIdMapping, String> {
+}
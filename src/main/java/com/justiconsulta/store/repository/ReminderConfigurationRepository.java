@@ -2,9 +2,15 @@ package com.justiconsulta.store.repository;
 
 import com.justiconsulta.store.model.ReminderConfiguration;
 import com.justiconsulta.store.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,6 +18,22 @@ import java.util.Optional;
 public interface ReminderConfigurationRepository extends JpaRepository<ReminderConfiguration, String> {
     Optional<ReminderConfiguration> findByUser(User user);
     Optional<ReminderConfiguration> findByUserDocumentNumber(String userDocumentNumber);
-    List<ReminderConfiguration> findByEnabledTrue();
-}
 
+    // Served by idx_reminder_config_due; the user comes in the same query
+    @Query("SELECT r FROM ReminderConfiguration r JOIN FETCH r.user WHERE r.enabled = true AND r.nextDueAt <= :now " +
+            "ORDER BY r.nextDueAt, r.id")
+    List<ReminderConfiguration> findDueWithUser(@Param("now") OffsetDateTime now, Pageable pageable);
+
+    // Rows created before next_due_at existed
+    List<ReminderConfiguration> findByEnabledTrueAndNextDueAtIsNull();
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReminderConfiguration r SET r.lastReminderSent = :sentAt, r.nextDueAt = :nextDueAt WHERE r.id = :id")
+    int markSent(@Param("id") String id, @Param("sentAt") OffsetDateTime sentAt, @Param("nextDueAt") OffsetDateTime nextDueAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReminderConfiguration r SET r.nextDueAt = :nextDueAt WHERE r.id = :id")
+    int reschedule(@Param("id") String id, @Param("nextDueAt") OffsetDateTime nextDueAt);
+}
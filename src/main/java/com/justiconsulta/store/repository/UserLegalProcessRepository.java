@@ -2,10 +2,12 @@ package com.justiconsulta.store.repository;
 
 import com.justiconsulta.store.model.UserLegalProcess;
 import com.justiconsulta.store.model.UserLegalProcess.UserLegalProcessId;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface UserLegalProcessRepository extends JpaRepository<UserLegalProcess, UserLegalProcessId> {
@@ -14,4 +16,13 @@ public interface UserLegalProcessRepository extends JpaRepository<UserLegalProce
 
     @Query("SELECT u FROM UserLegalProcess u WHERE u.id.userDocumentNumber = :documentNumber")
     List<UserLegalProcess> findByUserDocumentNumber(@Param("documentNumber") String documentNumber);
+
+    // [userDocumentNumber, count] for every user in the list that follows at least one process
+    @Query("SELECT u.id.userDocumentNumber, COUNT(u) FROM UserLegalProcess u WHERE u.id.userDocumentNumber IN :documentNumbers " +
+            "GROUP BY u.id.userDocumentNumber")
+    List<Object[]> countByUserDocumentNumbers(@Param("documentNumbers") Collection<String> documentNumbers);
+
+    // Keyset pagination over the distinct tracked processes (one row per radicado, not per subscriber)
+    @Query("SELECT DISTINCT u.id.legalProcessId FROM UserLegalProcess u WHERE u.id.legalProcessId > :after ORDER BY u.id.legalProcessId")
+    List<String> findDistinctProcessIdsAfter(@Param("after") String after, Pageable pageable);
 }
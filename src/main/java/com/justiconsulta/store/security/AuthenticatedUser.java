@@ -0,0 +1,18 @@
+package com.justiconsulta.store.security;
+
+import com.justiconsulta.store.model.User;
+
+import java.util.UUID;
+
+/**
+ * Snapshot inmutable del usuario autenticado. Se adjunta como details del {@code Authentication}
+ * para que los servicios no tengan que volver a consultar la tabla user en cada petición.
+ */
+public record AuthenticatedUser(String documentNumber, String email, UUID supabaseUserId,
+                                String firstName, String firstLastName) {
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getDocumentNumber(), user.getEmail(), user.getSupabaseUserId(),
+                user.getFirstName(), user.getFirstLastName());
+    }
+}
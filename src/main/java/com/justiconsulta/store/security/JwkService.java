@@ -1,42 +1,70 @@
 package com.justiconsulta.store.security;
 
 import com.nimbusds.jose.jwk.JWKSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.io.InputStream;
 import java.net.URL;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * JWKS de Supabase. Las lecturas no toman ningún lock: devuelven el snapshot inmutable actual.
+ * Una tarea programada lo refresca antes de que expire; los refrescos forzados (p. ej. un kid
+ * desconocido) están limitados a uno por intervalo mínimo, y si un refresco falla se conserva
+ * el último conjunto de llaves válido. Si la primera carga falla, el error se recuerda durante el
+ * intervalo mínimo y las peticiones fallan de inmediato en lugar de esperar cada una un fetch.
+ */
 @Component
 public class JwkService {
+    private static final Logger logger = LoggerFactory.getLogger(JwkService.class);
 
     private final String jwksUrl;
-    private final long ttlSeconds;
+    private final boolean configured;
+    private final Duration ttl;
+    private final Duration refreshAhead;
+    private final long minRefreshIntervalMillis;
+    private final int timeoutMillis;
 
-    private volatile JWKSet jwkSet;
-    private volatile Instant fetchedAt;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong lastAttemptMillis = new AtomicLong();
+    // Failed initial load, replayed to callers until the minimum interval has passed
+    private volatile LoadFailure lastLoadFailure;
+    // Only serializes the network fetch itself; readers never touch it
+    private final ReentrantLock fetchLock = new ReentrantLock();
 
     public JwkService(@Value("${supabase.url}") String supabaseUrl,
-                      @Value("${security.jwks.ttl:3600}") long ttlSeconds) {
+                      @Value("${security.jwks.ttl:3600}") long ttlSeconds,
+                      @Value("${security.jwks.refresh-ahead-seconds:300}") long refreshAheadSeconds,
+                      @Value("${security.jwks.min-refresh-interval-seconds:30}") long minRefreshIntervalSeconds,
+                      @Value("${security.jwks.timeout-ms:5000}") int timeoutMillis) {
         // supabaseUrl expected like https://<project>.supabase.co
         this.jwksUrl = supabaseUrl.endsWith("/") ? supabaseUrl + "auth/v1/.well-known/jwks.json" : supabaseUrl + "/auth/v1/.well-known/jwks.json";
-        this.ttlSeconds = ttlSeconds;
+        this.configured = !supabaseUrl.isBlank();
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.refreshAhead = Duration.ofSeconds(Math.min(refreshAheadSeconds, ttlSeconds));
+        this.minRefreshIntervalMillis = minRefreshIntervalSeconds * 1000L;
+        this.timeoutMillis = timeoutMillis;
     }
 
-    public synchronized JWKSet getJwkSet(boolean forceRefresh) throws Exception {
-        if (!forceRefresh && jwkSet != null && fetchedAt != null) {
-            if (Instant.now().isBefore(fetchedAt.plusSeconds(ttlSeconds))) {
-                return jwkSet;
-            }
+    public JWKSet getJwkSet(boolean forceRefresh) throws Exception {
+        Snapshot current = snapshot.get();
+        if (current != null && !forceRefresh && !current.isExpired(ttl)) {
+            return current.jwkSet();
         }
-        // fetch
-        try (InputStream is = new URL(jwksUrl).openStream()) {
-            JWKSet newSet = JWKSet.load(is);
-            this.jwkSet = newSet;
-            this.fetchedAt = Instant.now();
-            return this.jwkSet;
+        if (current == null) {
+            // Nothing to serve yet: callers must wait for the first fetch
+            throwIfRecentlyFailed();
+            return refresh(true).jwkSet();
         }
+        Snapshot refreshed = refresh(false);
+        return refreshed != null ? refreshed.jwkSet() : current.jwkSet();
     }
 
     public JWKSet getJwkSet() throws Exception {
@@ -46,5 +74,74 @@ public class JwkService {
     public void forceRefresh() throws Exception {
         getJwkSet(true);
     }
-}
 
+    // Keeps the set warm so request threads never see it expire
+    @Scheduled(fixedDelayString = "${security.jwks.refresh-check-ms:60000}")
+    public void refreshAheadOfExpiry() {
+        if (!configured) return;
+        Snapshot current = snapshot.get();
+        if (current != null && !current.isExpired(ttl.minus(refreshAhead))) return;
+        try {
+            refresh(false);
+        } catch (Exception e) {
+            logger.warn("Scheduled JWKS refresh failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Descarga el JWKS si no hubo otro intento dentro del intervalo mínimo. Con {@code mustLoad}
+     * (todavía no hay snapshot) espera al fetch en curso y propaga el error; en otro caso devuelve
+     * null cuando no se refrescó y el llamador sigue con el snapshot anterior.
+     */
+    private Snapshot refresh(boolean mustLoad) throws Exception {
+        if (mustLoad) {
+            fetchLock.lock();
+        } else if (!fetchLock.tryLock()) {
+            // another thread is already fetching
+            return null;
+        }
+        try {
+            Snapshot current = snapshot.get();
+            if (mustLoad && current != null) return current;
+            // Threads queued behind a failed first load get its error instead of fetching again
+            if (mustLoad) throwIfRecentlyFailed();
+
+            long now = System.currentTimeMillis();
+            if (!mustLoad && now - lastAttemptMillis.get() < minRefreshIntervalMillis) {
+                return null;
+            }
+            lastAttemptMillis.set(now);
+            try {
+                JWKSet loaded = JWKSet.load(new URL(jwksUrl), timeoutMillis, timeoutMillis, 0);
+                Snapshot fresh = new Snapshot(loaded, Instant.now());
+                snapshot.set(fresh);
+                lastLoadFailure = null;
+                return fresh;
+            } catch (Exception e) {
+                if (snapshot.get() == null) lastLoadFailure = new LoadFailure(e, now);
+                if (mustLoad) throw e;
+                logger.warn("JWKS refresh failed, keeping last known key set: {}", e.getMessage());
+                return null;
+            }
+        } finally {
+            fetchLock.unlock();
+        }
+    }
+
+    private void throwIfRecentlyFailed() {
+        LoadFailure failure = lastLoadFailure;
+        if (failure != null && System.currentTimeMillis() - failure.atMillis() < minRefreshIntervalMillis) {
+            throw new IllegalStateException("JWKS not loaded yet, last attempt failed: " + failure.error().getMessage(),
+                    failure.error());
+        }
+    }
+
+    private record LoadFailure(Exception error, long atMillis) {
+    }
+
+    private record Snapshot(JWKSet jwkSet, Instant fetchedAt) {
+        boolean isExpired(Duration maxAge) {
+            return !Instant.now().isBefore(fetchedAt.plus(maxAge));
+        }
+    }
+}
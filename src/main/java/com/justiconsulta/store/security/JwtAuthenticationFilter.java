@@ -7,8 +7,9 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -20,9 +21,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     private final TokenValidator tokenValidator;
+    private final UserIdentityCache identityCache;
+    private final SecurityContextRepository securityContextRepository = new RequestAttributeSecurityContextRepository();
 
-    public JwtAuthenticationFilter(TokenValidator tokenValidator) {
+    public JwtAuthenticationFilter(TokenValidator tokenValidator, UserIdentityCache identityCache) {
         this.tokenValidator = tokenValidator;
+        this.identityCache = identityCache;
     }
 
     @Override
@@ -35,8 +39,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 if (result != null && result.isValid()) {
                     String principal = result.getPrincipal();
                     if (principal != null && !principal.isBlank()) {
-                        Authentication auth = new UsernamePasswordAuthenticationToken(principal, null, result.getAuthorities().stream().map(a -> (org.springframework.security.core.authority.SimpleGrantedAuthority) new org.springframework.security.core.authority.SimpleGrantedAuthority(a)).collect(Collectors.toList()));
+                        UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(principal, null, result.getAuthorities().stream().map(a -> (org.springframework.security.core.authority.SimpleGrantedAuthority) new org.springframework.security.core.authority.SimpleGrantedAuthority(a)).collect(Collectors.toList()));
+                        // Resolve the local user once per request; services read it from the details
+                        identityCache.resolve(principal).ifPresent(auth::setDetails);
                         SecurityContextHolder.getContext().setAuthentication(auth);
+                        // Handlers returning CompletableFuture finish in an ASYNC dispatch, which this filter
+                        // skips; keeping the context on the request lets Spring Security restore it there
+                        securityContextRepository.saveContext(SecurityContextHolder.getContext(), request, response);
                     }
                 }
             } catch (Exception ex) {
@@ -1,5 +1,6 @@
 package com.justiconsulta.store.security;
 
+import com.nimbusds.jose.JWSVerifier;
 import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.JWKSet;
 import com.nimbusds.jose.jwk.RSAKey;
@@ -14,11 +15,16 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
+import java.time.Clock;
 import java.time.Instant;
 import java.util.Base64;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class TokenValidator {
@@ -28,11 +34,23 @@ public class TokenValidator {
     private final String expectedIssuer; // e.g. https://<supabase>.supabase.co/auth/v1
     private final byte[] hmacSecretBytes; // for HS* tokens generated by Supabase / local JwtTokenService
     private final byte[] hmacSecretBytesB64; // optional: base64-decoded secret if applicable
+    // Verifiers are thread-safe: build them once instead of per request
+    private final MACVerifier macVerifier;
+    private final MACVerifier macVerifierB64;
+    private final Map<String, JWSVerifier> jwkVerifiers = new ConcurrentHashMap<>();
+    private volatile JWKSet verifiersSource;
+
+    // Already verified tokens (key = SHA-256 of the token), valid until the token's exp
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+    private final int maxVerifiedTokens;
+    private Clock clock = Clock.systemUTC();
 
     public TokenValidator(JwkService jwkService,
                           @Value("${supabase.url}") String supabaseUrl,
-                          @Value("${security.jwt.secret:}") String jwtSecret) {
+                          @Value("${security.jwt.secret:}") String jwtSecret,
+                          @Value("${security.jwt.verified-cache.max-entries:10000}") int maxVerifiedTokens) {
         this.jwkService = jwkService;
+        this.maxVerifiedTokens = maxVerifiedTokens;
         if (supabaseUrl.endsWith("/")) {
             this.expectedIssuer = supabaseUrl + "auth/v1";
         } else {
@@ -52,6 +70,8 @@ public class TokenValidator {
             }
         }
         this.hmacSecretBytesB64 = decoded;
+        this.macVerifier = buildMacVerifier(hmacSecretBytes);
+        this.macVerifierB64 = buildMacVerifier(hmacSecretBytesB64);
         if (supabaseUrl == null || supabaseUrl.isBlank()) {
             logger.warn("supabase.url is empty. If the token contains an issuer (iss), validation may fail. Configure SUPABASE_URL environment variable.");
         }
@@ -59,6 +79,14 @@ public class TokenValidator {
 
     public TokenValidationResult validate(String token) {
         if (token == null || token.isBlank()) return TokenValidationResult.invalid();
+
+        String cacheKey = cacheKey(token);
+        VerifiedToken cached = cacheKey != null ? verifiedTokens.get(cacheKey) : null;
+        if (cached != null) {
+            if (clock.instant().isBefore(cached.expiresAt())) return cached.result();
+            verifiedTokens.remove(cacheKey, cached);
+        }
+
         try {
             SignedJWT jwt = SignedJWT.parse(token);
 
@@ -74,11 +102,9 @@ public class TokenValidator {
                     return TokenValidationResult.invalid();
                 }
                 try {
-                    MACVerifier macVerifier = new MACVerifier(hmacSecretBytes);
-                    verified = jwt.verify(macVerifier);
-                    if (!verified && hmacSecretBytesB64.length > 0) {
+                    verified = macVerifier != null && jwt.verify(macVerifier);
+                    if (!verified && macVerifierB64 != null) {
                         logger.warn("HMAC verification with plain secret failed, retrying with Base64-decoded secret fallback.");
-                        MACVerifier macVerifierB64 = new MACVerifier(hmacSecretBytesB64);
                         verified = jwt.verify(macVerifierB64);
                     }
                     if (!verified) {
@@ -113,7 +139,7 @@ public class TokenValidator {
             }
 
             // validate claims: exp, nbf
-            Instant now = Instant.now();
+            Instant now = clock.instant();
             if (jwt.getJWTClaimsSet().getExpirationTime() == null || jwt.getJWTClaimsSet().getExpirationTime().toInstant().isBefore(now)) {
                 logger.warn("JWT expired");
                 return TokenValidationResult.invalid();
@@ -154,7 +180,9 @@ public class TokenValidator {
             }
 
             List<String> authorities = List.of();
-            return new TokenValidationResult(true, principal, authorities);
+            TokenValidationResult result = new TokenValidationResult(true, principal, authorities);
+            remember(cacheKey, result, jwt.getJWTClaimsSet().getExpirationTime());
+            return result;
 
         } catch (ParseException ex) {
             logger.warn("Failed to parse JWT", ex);
@@ -165,6 +193,63 @@ public class TokenValidator {
         }
     }
 
+    // Tests move time past a token's exp through this instead of sleeping
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    private void remember(String cacheKey, TokenValidationResult result, Date expiration) {
+        if (cacheKey == null || maxVerifiedTokens <= 0) return;
+        // Clearing is cheap: active sessions repopulate on their next request
+        if (verifiedTokens.size() >= maxVerifiedTokens) verifiedTokens.clear();
+        verifiedTokens.put(cacheKey, new VerifiedToken(result, expiration.toInstant()));
+    }
+
+    private static String cacheKey(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    private static MACVerifier buildMacVerifier(byte[] secret) {
+        if (secret.length == 0) return null;
+        try {
+            return new MACVerifier(secret);
+        } catch (Exception e) {
+            logger.warn("Cannot build HMAC verifier from configured secret: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // RSA/EC verifiers by kid, rebuilt whenever JwkService hands out a different key set
+    private JWSVerifier verifierFor(JWK jwk, JWKSet source) throws Exception {
+        if (verifiersSource != source) {
+            jwkVerifiers.clear();
+            verifiersSource = source;
+        }
+        String kid = jwk.getKeyID();
+        if (kid != null) {
+            JWSVerifier cached = jwkVerifiers.get(kid);
+            if (cached != null) return cached;
+        }
+        JWSVerifier verifier;
+        if (jwk instanceof RSAKey rsaKey) {
+            verifier = new RSASSAVerifier(rsaKey.toRSAPublicKey());
+        } else if (jwk instanceof ECKey ecKey) {
+            verifier = new ECDSAVerifier(ecKey.toECPublicKey());
+        } else {
+            return null;
+        }
+        if (kid != null) jwkVerifiers.put(kid, verifier);
+        return verifier;
+    }
+
+    private record VerifiedToken(TokenValidationResult result, Instant expiresAt) {
+    }
+
     private boolean verifyWithJwkSet(SignedJWT jwt, boolean forceRefresh) throws Exception {
         JWKSet jwkSet = jwkService.getJwkSet(forceRefresh);
         String kid = jwt.getHeader().getKeyID();
@@ -184,13 +269,8 @@ public class TokenValidator {
             // Try verifying with each RSA/EC key in the set (fallback when kid is missing)
             for (JWK k : jwkSet.getKeys()) {
                 try {
-                    if (k instanceof RSAKey rsaKey) {
-                        RSASSAVerifier verifier = new RSASSAVerifier(rsaKey.toRSAPublicKey());
-                        if (jwt.verify(verifier)) return true;
-                    } else if (k instanceof ECKey ecKey) {
-                        ECDSAVerifier verifier = new ECDSAVerifier(ecKey.toECPublicKey());
-                        if (jwt.verify(verifier)) return true;
-                    }
+                    JWSVerifier verifier = verifierFor(k, jwkSet);
+                    if (verifier != null && jwt.verify(verifier)) return true;
                 } catch (Exception e) {
                     // ignore and try next key
                 }
@@ -200,16 +280,12 @@ public class TokenValidator {
         }
 
         try {
-            if (jwk instanceof RSAKey rsaKey) {
-                RSASSAVerifier verifier = new RSASSAVerifier(rsaKey.toRSAPublicKey());
-                return jwt.verify(verifier);
-            } else if (jwk instanceof ECKey ecKey) {
-                ECDSAVerifier verifier = new ECDSAVerifier(ecKey.toECPublicKey());
-                return jwt.verify(verifier);
-            } else {
+            JWSVerifier verifier = verifierFor(jwk, jwkSet);
+            if (verifier == null) {
                 logger.warn("Unsupported JWK type: {}", jwk.getClass());
                 return false;
             }
+            return jwt.verify(verifier);
         } catch (Exception e) {
             logger.warn("Signature verification failed, will try refresh if not forced", e);
             if (!forceRefresh) {
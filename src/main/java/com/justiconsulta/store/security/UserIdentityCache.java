@@ -0,0 +1,89 @@
+package com.justiconsulta.store.security;
+
+import com.justiconsulta.store.model.User;
+import com.justiconsulta.store.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caché principal del token (supabase user id o email) -> {@link AuthenticatedUser}.
+ * Evita las consultas findBySupabaseUserId / findByEmail en cada petición autenticada; con un pool
+ * de una sola conexión esas consultas se serializan delante de cualquier trabajo real.
+ * Solo se guardan usuarios encontrados: un principal sin usuario local se vuelve a buscar.
+ */
+@Component
+public class UserIdentityCache {
+
+    private final UserRepository userRepository;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public UserIdentityCache(UserRepository userRepository,
+                             @Value("${app.security.identity-cache.ttl-seconds:300}") long ttlSeconds,
+                             @Value("${app.security.identity-cache.max-entries:10000}") int maxEntries,
+                             MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.maxEntries = maxEntries;
+        this.hits = Counter.builder("auth.identity.cache.hits").register(meterRegistry);
+        this.misses = Counter.builder("auth.identity.cache.misses").register(meterRegistry);
+        Gauge.builder("auth.identity.cache.entries", entries, Map::size).register(meterRegistry);
+    }
+
+    public Optional<AuthenticatedUser> resolve(String principal) {
+        if (principal == null || principal.isBlank()) return Optional.empty();
+
+        long now = System.currentTimeMillis();
+        Entry cached = entries.get(principal);
+        if (cached != null && cached.expiresAt > now) {
+            hits.increment();
+            return Optional.of(cached.user);
+        }
+        misses.increment();
+
+        Optional<AuthenticatedUser> loaded = load(principal).map(AuthenticatedUser::from);
+        loaded.ifPresent(user -> {
+            // Same approach as ProcessIdResolver: clearing is cheap and entries repopulate on demand
+            if (entries.size() >= maxEntries) entries.clear();
+            entries.put(principal, new Entry(user, now + ttlMillis));
+        });
+        return loaded;
+    }
+
+    // Drops every principal that points to this user (by email, supabase id or document number)
+    public void invalidate(User user) {
+        if (user == null) return;
+        if (user.getEmail() != null) entries.remove(user.getEmail());
+        if (user.getSupabaseUserId() != null) entries.remove(user.getSupabaseUserId().toString());
+        if (user.getDocumentNumber() != null) {
+            entries.values().removeIf(e -> user.getDocumentNumber().equals(e.user.documentNumber()));
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private Optional<User> load(String principal) {
+        try {
+            return userRepository.findBySupabaseUserId(UUID.fromString(principal));
+        } catch (IllegalArgumentException ex) {
+            return userRepository.findByEmail(principal);
+        }
+    }
+
+    private record Entry(AuthenticatedUser user, long expiresAt) {
+    }
+}
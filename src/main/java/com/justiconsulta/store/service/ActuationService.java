@@ -10,6 +10,11 @@ import com.justiconsulta.store.repository.LegalProcessRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -57,4 +62,72 @@ public class ActuationService {
 
         return action;
     }
+
+    /**
+     * Registra las actuaciones nuevas detectadas en la API para un proceso y notifica a cada suscriptor
+     * solo las actuaciones posteriores a su propia lastActionDate. Cada Action se guarda una sola vez
+     * aunque el proceso tenga varios suscriptores. Los suscriptores sin fecha base solo se inicializan.
+     *
+     * @return por cada usuario notificado, la actuación más reciente (para enviar el correo fuera de la transacción)
+     */
+    @Transactional
+    public List<SubscriberUpdate> recordDetectedActuaciones(String numeroRadicacion, List<DetectedActuacion> detected,
+                                                            OffsetDateTime latestActionDate) {
+        OffsetDateTime now = OffsetDateTime.now();
+        List<LegalProcess> subscribers = processRepo.findSubscribersByProcessId(numeroRadicacion);
+        List<DetectedActuacion> ordered = detected.stream()
+                .sorted(Comparator.comparing(DetectedActuacion::date))
+                .toList();
+
+        Map<DetectedActuacion, Action> actions = new HashMap<>();
+        List<Notification> notifications = new ArrayList<>();
+        List<SubscriberUpdate> updates = new ArrayList<>();
+
+        for (LegalProcess subscriber : subscribers) {
+            OffsetDateTime baseline = subscriber.getLastActionDate();
+            if (baseline != null) {
+                DetectedActuacion latestForUser = null;
+                for (DetectedActuacion actuacion : ordered) {
+                    if (!actuacion.date().isAfter(baseline)) continue;
+                    Action action = actions.computeIfAbsent(actuacion, a -> actionRepo.save(newAction(a, now)));
+
+                    Notification notification = new Notification();
+                    notification.setUser(subscriber.getUser());
+                    notification.setAction(action);
+                    notification.setType("NEW_ACTUATION");
+                    notification.setMessage(String.format("Nueva actuación en el proceso %s registrada el %s",
+                            numeroRadicacion, actuacion.date().toLocalDate()));
+                    notification.setDate(now);
+                    notification.setIsRead(false);
+                    notification.setCreatedAt(now);
+                    notifications.add(notification);
+                    latestForUser = actuacion;
+                }
+                if (latestForUser != null) {
+                    updates.add(new SubscriberUpdate(subscriber.getUser(), latestForUser));
+                }
+            }
+            if (latestActionDate != null && (baseline == null || latestActionDate.isAfter(baseline))) {
+                subscriber.setLastActionDate(latestActionDate);
+            }
+        }
+
+        notificationRepo.saveAll(notifications);
+        processRepo.saveAll(subscribers);
+        return updates;
+    }
+
+    private Action newAction(DetectedActuacion actuacion, OffsetDateTime now) {
+        Action action = new Action();
+        action.setDescription(actuacion.description());
+        action.setDate(actuacion.date());
+        action.setCreatedAt(now);
+        return action;
+    }
+
+    public record DetectedActuacion(String description, OffsetDateTime date) {
+    }
+
+    public record SubscriberUpdate(User user, DetectedActuacion latest) {
+    }
 }
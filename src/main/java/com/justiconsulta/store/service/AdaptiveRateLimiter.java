@@ -0,0 +1,112 @@
+package com.justiconsulta.store.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limitador para la API de la Rama Judicial que combina:
+ * <ul>
+ *     <li>un token bucket (peticiones por segundo con ráfaga máxima), y</li>
+ *     <li>un límite de concurrencia adaptativo AIMD: sube de forma aditiva mientras la latencia observada
+ *     está por debajo del objetivo y baja de forma multiplicativa ante fallos o respuestas lentas.</li>
+ * </ul>
+ * Nunca bloquea: si no hay token o cupo de concurrencia, la llamada se rechaza de inmediato.
+ */
+public class AdaptiveRateLimiter {
+
+    public enum Rejection { NONE, RATE, CONCURRENCY }
+
+    private final double permitsPerSecond;
+    private final double burst;
+    private final double minLimit;
+    private final double maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private double tokens;
+    private long lastRefillNanos;
+    private double limit;
+    private int inFlight;
+
+    public AdaptiveRateLimiter(double permitsPerSecond, double burst, int initialLimit, int minLimit, int maxLimit,
+                               long targetLatencyMillis, double backoffRatio) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatencyMillis * 1_000_000L;
+        this.backoffRatio = backoffRatio;
+        this.tokens = burst;
+        this.limit = initialLimit;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public Rejection tryAcquire() {
+        lock.lock();
+        try {
+            refill();
+            if (inFlight >= (int) limit) return Rejection.CONCURRENCY;
+            if (tokens < 1) return Rejection.RATE;
+            tokens -= 1;
+            inFlight++;
+            return Rejection.NONE;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(boolean success, long latencyNanos) {
+        lock.lock();
+        try {
+            inFlight = Math.max(0, inFlight - 1);
+            if (!success || latencyNanos > targetLatencyNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double permitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public double limit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double availableTokens() {
+        lock.lock();
+        try {
+            refill();
+            return tokens;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double elapsedSeconds = (now - lastRefillNanos) / 1_000_000_000.0;
+        if (elapsedSeconds > 0) {
+            tokens = Math.min(burst, tokens + elapsedSeconds * permitsPerSecond);
+            lastRefillNanos = now;
+        }
+    }
+}
@@ -1,28 +1,61 @@
 package com.justiconsulta.store.service;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
-import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.OffsetDateTime;
 import java.util.Optional;
 
 
 @Service
 public class ApiClient {
+    private static final Logger log = LoggerFactory.getLogger(ApiClient.class);
+
     private final RestTemplate restTemplate;
     private final String baseUrl;
+    private final CourtResponseCache responseCache;
+    private final CourtApiGuard guard;
+    private final CourtPayloadExtractor payloadExtractor;
+    private final SingleFlight<String, ResponseEntity<String>> singleFlight = new SingleFlight<>();
+    private final ExecutorService revalidationExecutor;
+    private final int streamBufferBytes;
+    private final int streamTapBytes;
 
 
     public static final String ENDPOINT_NUMERO_RADICACION = "/Procesos/Consulta/NumeroRadicacion?numero={numeroRadicacion}";
@@ -31,41 +64,249 @@ public class ApiClient {
     public static final String ENDPOINT_PROCESS_DOCUMENTS = "/Proceso/Documentos/{idProceso}";
     public static final String ENDPOINT_PROCESS_ACTUACIONES = "/Proceso/Actuaciones/{idProceso}";
 
-    public ApiClient(RestTemplate restTemplate, @Value("${api.external.base-url}") String baseUrl) {
+    public ApiClient(RestTemplate restTemplate, @Value("${api.external.base-url}") String baseUrl,
+                     CourtResponseCache responseCache, CourtApiGuard guard, CourtPayloadExtractor payloadExtractor,
+                     MeterRegistry meterRegistry,
+                     Environment environment,
+                     @Value("${api.external.cache.revalidation-threads:4}") int revalidationThreads,
+                     @Value("${api.external.stream.buffer-bytes:8192}") int streamBufferBytes,
+                     @Value("${api.external.stream.tap-bytes:65536}") int streamTapBytes) {
         this.restTemplate = restTemplate;
         this.baseUrl = baseUrl;
+        this.responseCache = responseCache;
+        this.guard = guard;
+        this.payloadExtractor = payloadExtractor;
+        this.streamBufferBytes = Math.max(1024, streamBufferBytes);
+        this.streamTapBytes = Math.max(0, streamTapBytes);
+        // Bounded queue: a rejected refresh just leaves the stale entry in place until the next request
+        this.revalidationExecutor = Threading.VIRTUAL.isActive(environment)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : new ThreadPoolExecutor(revalidationThreads, revalidationThreads, 60, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(256), new CustomizableThreadFactory("court-revalidate-"));
+        FunctionCounter.builder("court.api.coalesced", singleFlight, SingleFlight::sharedCount).register(meterRegistry);
+        Gauge.builder("court.api.in-flight", singleFlight, SingleFlight::inFlightCount).register(meterRegistry);
+    }
+
+    private ResponseEntity<String> cachedGet(CourtEndpoint endpoint, String uri) {
+        return cachedGet(endpoint, uri, CourtApiGuard.Priority.INTERACTIVE);
+    }
+
+    // Serves cached responses (stale ones while a background refresh runs) and only blocks upstream on a miss
+    private ResponseEntity<String> cachedGet(CourtEndpoint endpoint, String uri, CourtApiGuard.Priority priority) {
+        Optional<CourtResponseCache.Lookup> cached = responseCache.lookup(endpoint, uri);
+        if (cached.isPresent() && cached.get().freshness() == CourtResponseCache.Freshness.FRESH) {
+            return cached.get().response();
+        }
+        if (cached.isPresent() && cached.get().freshness() == CourtResponseCache.Freshness.STALE) {
+            revalidateInBackground(endpoint, uri, priority);
+            return cached.get().response();
+        }
+        // Concurrent callers for the same URI share a single upstream request
+        ResponseEntity<String> response = singleFlight.execute(flightKey(uri, priority), () -> fetchAndStore(endpoint, uri, priority));
+        if (cached.isPresent() && CourtApiGuard.isFailure(response)) {
+            // stale-if-error: an old answer beats a 5xx/503 from the court API
+            responseCache.recordStaleIfError();
+            return cached.get().response();
+        }
+        return response;
+    }
+
+    // Background calls may wait for their own budget, so they get a separate key and user requests
+    // never queue behind them
+    private static String flightKey(String uri, CourtApiGuard.Priority priority) {
+        return priority == CourtApiGuard.Priority.BACKGROUND ? "background:" + uri : uri;
+    }
+
+    private ResponseEntity<String> fetchAndStore(CourtEndpoint endpoint, String uri, CourtApiGuard.Priority priority) {
+        ResponseEntity<String> response = guardedGet(endpoint, uri, priority);
+        if (priority == CourtApiGuard.Priority.BACKGROUND) {
+            // A background scan touches every tracked process once: it refreshes entries users already
+            // have cached but does not add new ones, which would evict what users are reading
+            responseCache.replace(endpoint, uri, response);
+        } else {
+            responseCache.put(endpoint, uri, response);
+        }
+        return response;
+    }
+
+    // Shares the in-flight map, so many stale hits on the same URI trigger a single refresh
+    private void revalidateInBackground(CourtEndpoint endpoint, String uri, CourtApiGuard.Priority priority) {
+        singleFlight.executeAsync(flightKey(uri, priority), () -> CompletableFuture.supplyAsync(
+                        () -> fetchAndStore(endpoint, uri, priority), revalidationExecutor))
+                .exceptionally(e -> {
+                    log.debug("No se pudo refrescar {} en segundo plano: {}", uri, e.getMessage());
+                    return null;
+                });
+    }
+
+    // Fails fast with 503 while the endpoint's circuit is open or the limiter has no room
+    private ResponseEntity<String> guardedGet(CourtEndpoint endpoint, String uri, CourtApiGuard.Priority priority) {
+        CourtApiGuard.Permit permit = guard.tryAcquire(endpoint, priority);
+        if (!permit.isGranted()) {
+            return permit.rejectionResponse();
+        }
+        ResponseEntity<String> response = null;
+        try {
+            response = safeGet(uri);
+            return response;
+        } finally {
+            permit.complete(response);
+        }
     }
 
     // Helper that executes GET and converts RestTemplate exceptions into ResponseEntity
     private ResponseEntity<String> safeGet(String uri) {
         try {
             return restTemplate.getForEntity(uri, String.class);
-        } catch (HttpClientErrorException e) {
+        } catch (RestClientException e) {
+            return toErrorResponse(e);
+        }
+    }
+
+    private static ResponseEntity<String> toErrorResponse(RestClientException e) {
+        if (e instanceof HttpClientErrorException clientError) {
             // propagate client errors (404, 400, etc.) with body
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsString());
-        } catch (HttpServerErrorException e) {
+            return ResponseEntity.status(clientError.getStatusCode()).body(clientError.getResponseBodyAsString());
+        }
+        if (e instanceof HttpServerErrorException serverError) {
             // server error from external API
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsString());
-        } catch (ResourceAccessException e) {
+            return ResponseEntity.status(serverError.getStatusCode()).body(serverError.getResponseBodyAsString());
+        }
+        if (e instanceof ResourceAccessException) {
             // network/connectivity/timeouts
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("External API unreachable: " + e.getMessage());
-        } catch (RestClientException e) {
-            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body("Error calling external API: " + e.getMessage());
+        }
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body("Error calling external API: " + e.getMessage());
+    }
+
+    /**
+     * Variante en streaming de {@link #cachedGet}: en un fallo de caché el cuerpo del upstream se copia
+     * directamente a {@code target} con un buffer fijo, sin materializarlo como String. Solo se retienen
+     * los primeros {@code tap-bytes}; si el cuerpo completo cabe ahí, se guarda en la caché como siempre.
+     * Devuelve null cuando el cuerpo ya se escribió en {@code target}; si no (acierto de caché, rechazo
+     * del guard o error del upstream) devuelve la respuesta para entregarla por el camino normal.
+     */
+    private ResponseEntity<String> streamTo(CourtEndpoint endpoint, String uri, HttpServletResponse target) {
+        Optional<CourtResponseCache.Lookup> cached = responseCache.lookup(endpoint, uri);
+        if (cached.isPresent() && cached.get().freshness() == CourtResponseCache.Freshness.FRESH) {
+            return cached.get().response();
+        }
+        if (cached.isPresent() && cached.get().freshness() == CourtResponseCache.Freshness.STALE) {
+            revalidateInBackground(endpoint, uri, CourtApiGuard.Priority.INTERACTIVE);
+            return cached.get().response();
+        }
+
+        CourtApiGuard.Permit permit = guard.tryAcquire(endpoint);
+        ResponseEntity<String> outcome;
+        if (!permit.isGranted()) {
+            outcome = permit.rejectionResponse();
+        } else {
+            ResponseEntity<String> upstreamResult = null;
+            try {
+                outcome = restTemplate.execute(uri, HttpMethod.GET, null,
+                        upstream -> copyToClient(endpoint, uri, upstream, target));
+                upstreamResult = ResponseEntity.ok().build();
+            } catch (ClientWriteException e) {
+                // The client went away; the upstream call itself was fine
+                log.debug("Cliente desconectado durante el streaming de {}: {}", uri, e.getMessage());
+                upstreamResult = ResponseEntity.ok().build();
+                return null;
+            } catch (RestClientException e) {
+                upstreamResult = toErrorResponse(e);
+                if (target.isCommitted()) {
+                    // Headers are already out: the client sees a truncated body, nothing else can be sent
+                    log.warn("Streaming de {} interrumpido: {}", uri, e.getMessage());
+                    return null;
+                }
+                outcome = upstreamResult;
+            } finally {
+                permit.complete(upstreamResult);
+            }
+            if (outcome == null) return null;
+        }
+        if (cached.isPresent() && CourtApiGuard.isFailure(outcome)) {
+            responseCache.recordStaleIfError();
+            return cached.get().response();
+        }
+        return outcome;
+    }
+
+    private ResponseEntity<String> copyToClient(CourtEndpoint endpoint, String uri, ClientHttpResponse upstream,
+                                                HttpServletResponse target) throws IOException {
+        HttpHeaders headers = upstream.getHeaders();
+        MediaType contentType = headers.getContentType();
+        target.setStatus(upstream.getStatusCode().value());
+        target.setContentType(contentType != null ? contentType.toString() : MediaType.APPLICATION_JSON_VALUE);
+        if (headers.getContentLength() >= 0) {
+            target.setContentLengthLong(headers.getContentLength());
+        }
+
+        ByteArrayOutputStream tap = new ByteArrayOutputStream(Math.min(streamTapBytes, streamBufferBytes));
+        boolean tapComplete = streamTapBytes > 0;
+        byte[] buffer = new byte[streamBufferBytes];
+        InputStream in = upstream.getBody();
+        OutputStream out = clientOutput(target);
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            if (tapComplete) {
+                if (tap.size() + read <= streamTapBytes) {
+                    tap.write(buffer, 0, read);
+                } else {
+                    tapComplete = false; // larger than the tap: streamed only, never cached
+                    tap = null;
+                }
+            }
+            try {
+                out.write(buffer, 0, read);
+            } catch (IOException e) {
+                throw new ClientWriteException(e);
+            }
+        }
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new ClientWriteException(e);
+        }
+
+        if (tapComplete) {
+            Charset charset = contentType != null && contentType.getCharset() != null
+                    ? contentType.getCharset() : StandardCharsets.UTF_8;
+            ResponseEntity.BodyBuilder builder = ResponseEntity.status(upstream.getStatusCode());
+            if (contentType != null) builder.contentType(contentType);
+            responseCache.put(endpoint, uri, builder.body(tap.toString(charset)));
+        }
+        return null;
+    }
+
+    private static OutputStream clientOutput(HttpServletResponse target) {
+        try {
+            return target.getOutputStream();
+        } catch (IOException e) {
+            throw new ClientWriteException(e);
+        }
+    }
+
+    // Failures writing to our own client, kept apart from upstream I/O errors (which RestTemplate wraps)
+    private static final class ClientWriteException extends UncheckedIOException {
+        ClientWriteException(IOException cause) {
+            super(cause);
         }
     }
 
     // Validate that numeroRadicacion is exactly 23 digits (trimmed)
-    private boolean isValidNumeroRadicacion(String numeroRadicacion) {
-        if (numeroRadicacion == null) return false;
-        String s = numeroRadicacion.trim();
-        return s.matches("^\\d{23}$");
+    static boolean isValidNumeroRadicacion(String numeroRadicacion) {
+        // trim() returns the same instance when there is nothing to strip, so the usual case allocates nothing
+        return numeroRadicacion != null && Radicado.isValid(numeroRadicacion.trim());
     }
 
-    public ResponseEntity<String> getByNumeroRadicacion(String numeroRadicacion, Map<String, String> queryParams) {
-        if (!isValidNumeroRadicacion(numeroRadicacion)) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid numeroRadicacion: must be exactly 23 digits");
+    static void requireIdProceso(String idProceso) {
+        if (idProceso == null || idProceso.isBlank()) {
+            throw new IllegalArgumentException("idProceso is required");
         }
+    }
 
+    // URI builders shared with AsyncApiClient so both clients hit the same cache keys
+    String numeroRadicacionUri(String numeroRadicacion, Map<String, String> queryParams) {
         String trimmed = numeroRadicacion.trim();
         String url = baseUrl + ENDPOINT_NUMERO_RADICACION.replace("{numeroRadicacion}", trimmed) + "&soloActivos=false";
 
@@ -73,8 +314,57 @@ public class ApiClient {
         if (queryParams != null) {
             queryParams.forEach(builder::queryParam);
         }
+        return builder.toUriString();
+    }
 
-        return safeGet(builder.toUriString());
+    String processDetailUri(String idProceso) {
+        return UriComponentsBuilder.fromUriString(baseUrl + ENDPOINT_PROCESS_DETAIL.replace("{idProceso}", idProceso))
+                .toUriString();
+    }
+
+    String processSubjectsUri(String idProceso, int pagina) {
+        return UriComponentsBuilder.fromUriString(baseUrl + ENDPOINT_PROCESS_SUBJECTS.replace("{idProceso}", idProceso))
+                .queryParam("pagina", pagina).toUriString();
+    }
+
+    String processDocumentsUri(String idProceso) {
+        return UriComponentsBuilder.fromUriString(baseUrl + ENDPOINT_PROCESS_DOCUMENTS.replace("{idProceso}", idProceso))
+                .toUriString();
+    }
+
+    String processActuacionesUri(String idProceso, int pagina) {
+        return UriComponentsBuilder.fromUriString(baseUrl + ENDPOINT_PROCESS_ACTUACIONES.replace("{idProceso}", idProceso))
+                .queryParam("pagina", pagina).toUriString();
+    }
+
+    CourtResponseCache responseCache() {
+        return responseCache;
+    }
+
+    SingleFlight<String, ResponseEntity<String>> singleFlight() {
+        return singleFlight;
+    }
+
+    CourtApiGuard guard() {
+        return guard;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        revalidationExecutor.shutdownNow();
+    }
+
+    public ResponseEntity<String> getByNumeroRadicacion(String numeroRadicacion, Map<String, String> queryParams) {
+        return getByNumeroRadicacion(numeroRadicacion, queryParams, CourtApiGuard.Priority.INTERACTIVE);
+    }
+
+    // BACKGROUND draws from the poller's own limiter instead of the budget of user requests
+    public ResponseEntity<String> getByNumeroRadicacion(String numeroRadicacion, Map<String, String> queryParams,
+                                                        CourtApiGuard.Priority priority) {
+        if (!isValidNumeroRadicacion(numeroRadicacion)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid numeroRadicacion: must be exactly 23 digits");
+        }
+        return cachedGet(CourtEndpoint.NUMERO_RADICACION, numeroRadicacionUri(numeroRadicacion, queryParams), priority);
     }
 
     public ResponseEntity<String> get(String endpoint, Map<String, ?> params) {
@@ -85,134 +375,88 @@ public class ApiClient {
                 if (v != null) builder.queryParam(k, v.toString());
             });
         }
-        return safeGet(builder.toUriString());
+        return guardedGet(CourtEndpoint.OTHER, builder.toUriString(), CourtApiGuard.Priority.INTERACTIVE);
     }
 
     // New: call /Proceso/Detalle/{idProceso}
     public ResponseEntity<String> getProcessDetail(String idProceso) {
-        if (idProceso == null || idProceso.isBlank()) {
-            throw new IllegalArgumentException("idProceso is required");
-        }
-        String url = baseUrl + ENDPOINT_PROCESS_DETAIL.replace("{idProceso}", idProceso);
-        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(url);
-        return safeGet(builder.toUriString());
+        requireIdProceso(idProceso);
+        return cachedGet(CourtEndpoint.PROCESS_DETAIL, processDetailUri(idProceso));
     }
 
     // New: call /Proceso/Sujetos/{idProceso}?pagina={pagina}
     public ResponseEntity<String> getProcessSubjects(String idProceso, int pagina) {
-        if (idProceso == null || idProceso.isBlank()) {
-            throw new IllegalArgumentException("idProceso is required");
-        }
-        String url = baseUrl + ENDPOINT_PROCESS_SUBJECTS.replace("{idProceso}", idProceso);
-        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(url).queryParam("pagina", pagina);
-        return safeGet(builder.toUriString());
+        requireIdProceso(idProceso);
+        return cachedGet(CourtEndpoint.PROCESS_SUBJECTS, processSubjectsUri(idProceso, pagina));
     }
 
     // New: call /Proceso/Documentos/{idProceso}
     public ResponseEntity<String> getProcessDocuments(String idProceso) {
-        if (idProceso == null || idProceso.isBlank()) {
-            throw new IllegalArgumentException("idProceso is required");
-        }
-        String url = baseUrl + ENDPOINT_PROCESS_DOCUMENTS.replace("{idProceso}", idProceso);
-        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(url);
-        return safeGet(builder.toUriString());
+        requireIdProceso(idProceso);
+        return cachedGet(CourtEndpoint.PROCESS_DOCUMENTS, processDocumentsUri(idProceso));
     }
 
     // New: call /Proceso/Actuaciones/{idProceso}?pagina={pagina}
     public ResponseEntity<String> getProcessActuaciones(String idProceso, int pagina) {
-        if (idProceso == null || idProceso.isBlank()) {
-            throw new IllegalArgumentException("idProceso is required");
-        }
-        String url = baseUrl + ENDPOINT_PROCESS_ACTUACIONES.replace("{idProceso}", idProceso);
-        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(url).queryParam("pagina", pagina);
-        return safeGet(builder.toUriString());
+        return getProcessActuaciones(idProceso, pagina, CourtApiGuard.Priority.INTERACTIVE);
+    }
+
+    public ResponseEntity<String> getProcessActuaciones(String idProceso, int pagina, CourtApiGuard.Priority priority) {
+        requireIdProceso(idProceso);
+        return cachedGet(CourtEndpoint.PROCESS_ACTUACIONES, processActuacionesUri(idProceso, pagina), priority);
+    }
+
+    /**
+     * Proxy en streaming para detalle, sujetos, documentos y actuaciones. Misma semántica de retorno
+     * que {@link #streamTo}: null si el cuerpo ya se escribió en {@code target}.
+     */
+    public ResponseEntity<String> streamProcessResource(CourtEndpoint endpoint, String idProceso, int pagina,
+                                                        HttpServletResponse target) {
+        requireIdProceso(idProceso);
+        String uri = switch (endpoint) {
+            case PROCESS_DETAIL -> processDetailUri(idProceso);
+            case PROCESS_SUBJECTS -> processSubjectsUri(idProceso, pagina);
+            case PROCESS_DOCUMENTS -> processDocumentsUri(idProceso);
+            case PROCESS_ACTUACIONES -> processActuacionesUri(idProceso, pagina);
+            default -> throw new IllegalArgumentException("Endpoint sin modo streaming: " + endpoint);
+        };
+        return streamTo(endpoint, uri, target);
     }
 
     // Validar número de radicación consultando la API remota
     public boolean validateId(String numeroRadicacion) {
-        if (numeroRadicacion == null || numeroRadicacion.isBlank()) {
-            return false;
-        }
-        if (!isValidNumeroRadicacion(numeroRadicacion)) {
-            return false;
-        }
+        return getProcessSnapshot(numeroRadicacion).found();
+    }
+
+    /**
+     * Una sola consulta por NumeroRadicacion y una sola lectura del cuerpo para validez, idProceso,
+     * fecha de última actuación y despacho. "Encontrado" conserva el criterio de siempre: 2xx con
+     * cuerpo no vacío. Sin respuesta útil de la API (errores de red, 5xx, 429, rechazo del guard) el
+     * resultado es UNAVAILABLE, no "no encontrado".
+     */
+    public CourtProcessSnapshot getProcessSnapshot(String numeroRadicacion) {
+        if (!isValidNumeroRadicacion(numeroRadicacion)) return CourtProcessSnapshot.notFound();
+        ResponseEntity<String> resp;
         try {
-            ResponseEntity<String> response = getByNumeroRadicacion(numeroRadicacion, Map.of());
-            return response != null
-                    && response.getStatusCode().is2xxSuccessful()
-                    && Objects.nonNull(response.getBody())
-                    && !response.getBody().isBlank();
+            resp = getByNumeroRadicacion(numeroRadicacion, Map.of());
         } catch (Exception e) {
-            return false;
+            log.debug("Consulta por numeroRadicacion {} falló: {}", numeroRadicacion, e.getMessage());
+            return CourtProcessSnapshot.unavailable();
+        }
+        if (CourtApiGuard.isFailure(resp)) {
+            return CourtProcessSnapshot.unavailable();
         }
+        if (!resp.getStatusCode().is2xxSuccessful() || resp.getBody() == null || resp.getBody().isBlank()) {
+            return CourtProcessSnapshot.notFound();
+        }
+        return CourtProcessSnapshot.parse(payloadExtractor, resp.getBody());
     }
 
-    // New: Try to extract the last action date from the NumeroRadicacion response body
     public Optional<OffsetDateTime> getLastActionDateByNumeroRadicacion(String numeroRadicacion) {
-        ResponseEntity<String> resp = getByNumeroRadicacion(numeroRadicacion, Map.of());
-        if (resp == null || !resp.getStatusCode().is2xxSuccessful() || resp.getBody() == null || resp.getBody().isBlank()) {
-            return Optional.empty();
-        }
-        String body = resp.getBody();
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(body);
-            // Heurísticas: buscar campos comunes
-            // 1) campo directo 'fechaUltimaActuacion' o 'lastActionDate'
-            String[] directKeys = new String[]{"fechaUltimaActuacion", "lastActionDate", "ultimaActuacionFecha"};
-            for (String k : directKeys) {
-                JsonNode n = root.get(k);
-                if (n != null && n.isTextual()) {
-                    try { return Optional.of(OffsetDateTime.parse(n.asText())); } catch (Exception ignore) {}
-                }
-            }
-            // 2) objeto 'ultimaActuacion' con campo 'fechaActuacion'
-            JsonNode ua = root.get("ultimaActuacion");
-            if (ua != null && ua.isObject()) {
-                JsonNode f = ua.get("fechaActuacion");
-                if (f != null && f.isTextual()) {
-                    try { return Optional.of(OffsetDateTime.parse(f.asText())); } catch (Exception ignore) {}
-                }
-            }
-            // 3) si es arreglo, tomar el primer elemento que tenga 'fechaActuacion'
-            if (root.isArray() && !root.isEmpty()) {
-                JsonNode first = root.get(0);
-                if (first != null) {
-                    JsonNode f = first.get("fechaActuacion");
-                    if (f != null && f.isTextual()) {
-                        try { return Optional.of(OffsetDateTime.parse(f.asText())); } catch (Exception ignore) {}
-                    }
-                }
-            }
-        } catch (Exception e) {
-            // ignore parse errors; return empty
-        }
-        return Optional.empty();
+        return getProcessSnapshot(numeroRadicacion).lastActionDateIfPresent();
     }
 
-    // New: Resolve idProceso from NumeroRadicacion by calling external API and parsing response
     public Optional<String> getProcessIdByNumeroRadicacion(String numeroRadicacion) {
-        if (!isValidNumeroRadicacion(numeroRadicacion)) return Optional.empty();
-
-        ResponseEntity<String> resp = getByNumeroRadicacion(numeroRadicacion, Map.of());
-        if (resp == null || !resp.getStatusCode().is2xxSuccessful()) return Optional.empty();
-        String body = resp.getBody();
-        if (body == null || body.isBlank()) return Optional.empty();
-
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(body);
-            JsonNode procesos = root.path("procesos");
-            if (procesos.isArray() && !procesos.isEmpty()) {
-                JsonNode first = procesos.get(0);
-                JsonNode idProc = first.path("idProceso");
-                if (idProc.isNumber() || (idProc.isTextual() && !idProc.asText().isBlank())) {
-                    return Optional.of(idProc.asText());
-                }
-            }
-        } catch (Exception ignore) {
-            // si falla el parseo, retornar vacío
-        }
-        return Optional.empty();
+        return getProcessSnapshot(numeroRadicacion).idProcesoIfPresent();
     }
 }
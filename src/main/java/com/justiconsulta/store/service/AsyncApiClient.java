@@ -0,0 +1,141 @@
+package com.justiconsulta.store.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Non-blocking counterpart of {@link ApiClient}. Every endpoint returns a {@link CompletableFuture}
+ * backed by {@link HttpClient#sendAsync}, so no request thread is parked while the court API answers.
+ * Shares the response cache, the in-flight map and the {@link CourtApiGuard} with {@link ApiClient}.
+ */
+@Service
+public class AsyncApiClient {
+    private final ApiClient apiClient;
+    private final HttpClient httpClient;
+    private final Duration readTimeout;
+
+    // courtHttpClient comes from RestTemplateConfig: same timeouts and connection pool as the jdk RestTemplate
+    public AsyncApiClient(ApiClient apiClient, HttpClient courtHttpClient,
+                          @Value("${api.external.http.read-timeout-ms:10000}") int readTimeoutMs) {
+        this.apiClient = apiClient;
+        this.httpClient = courtHttpClient;
+        this.readTimeout = Duration.ofMillis(readTimeoutMs);
+    }
+
+    public CompletableFuture<ResponseEntity<String>> getByNumeroRadicacion(String numeroRadicacion, Map<String, String> queryParams) {
+        if (!ApiClient.isValidNumeroRadicacion(numeroRadicacion)) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Invalid numeroRadicacion: must be exactly 23 digits"));
+        }
+        return cachedGet(CourtEndpoint.NUMERO_RADICACION, apiClient.numeroRadicacionUri(numeroRadicacion, queryParams));
+    }
+
+    public CompletableFuture<ResponseEntity<String>> getProcessDetail(String idProceso) {
+        ApiClient.requireIdProceso(idProceso);
+        return cachedGet(CourtEndpoint.PROCESS_DETAIL, apiClient.processDetailUri(idProceso));
+    }
+
+    public CompletableFuture<ResponseEntity<String>> getProcessSubjects(String idProceso, int pagina) {
+        ApiClient.requireIdProceso(idProceso);
+        return cachedGet(CourtEndpoint.PROCESS_SUBJECTS, apiClient.processSubjectsUri(idProceso, pagina));
+    }
+
+    public CompletableFuture<ResponseEntity<String>> getProcessDocuments(String idProceso) {
+        ApiClient.requireIdProceso(idProceso);
+        return cachedGet(CourtEndpoint.PROCESS_DOCUMENTS, apiClient.processDocumentsUri(idProceso));
+    }
+
+    public CompletableFuture<ResponseEntity<String>> getProcessActuaciones(String idProceso, int pagina) {
+        ApiClient.requireIdProceso(idProceso);
+        return cachedGet(CourtEndpoint.PROCESS_ACTUACIONES, apiClient.processActuacionesUri(idProceso, pagina));
+    }
+
+    private CompletableFuture<ResponseEntity<String>> cachedGet(CourtEndpoint endpoint, String uri) {
+        Optional<CourtResponseCache.Lookup> cached = apiClient.responseCache().lookup(endpoint, uri);
+        if (cached.isPresent() && cached.get().freshness() == CourtResponseCache.Freshness.FRESH) {
+            return CompletableFuture.completedFuture(cached.get().response());
+        }
+        CompletableFuture<ResponseEntity<String>> refresh = apiClient.singleFlight().executeAsync(uri, () -> fetchAndStore(endpoint, uri));
+        if (cached.isEmpty()) {
+            return refresh;
+        }
+        if (cached.get().freshness() == CourtResponseCache.Freshness.STALE) {
+            // stale-while-revalidate: the refresh above keeps running without anyone waiting on it
+            return CompletableFuture.completedFuture(cached.get().response());
+        }
+        return refresh.thenApply(response -> {
+            if (!CourtApiGuard.isFailure(response)) return response;
+            apiClient.responseCache().recordStaleIfError();
+            return cached.get().response();
+        });
+    }
+
+    private CompletableFuture<ResponseEntity<String>> fetchAndStore(CourtEndpoint endpoint, String uri) {
+        return guardedGetAsync(endpoint, uri).thenApply(response -> {
+            apiClient.responseCache().put(endpoint, uri, response);
+            return response;
+        });
+    }
+
+    private CompletableFuture<ResponseEntity<String>> guardedGetAsync(CourtEndpoint endpoint, String uri) {
+        CourtApiGuard.Permit permit = apiClient.guard().tryAcquire(endpoint);
+        if (!permit.isGranted()) {
+            return CompletableFuture.completedFuture(permit.rejectionResponse());
+        }
+        return safeGetAsync(uri).whenComplete((response, error) -> permit.complete(response));
+    }
+
+    // Same error mapping as ApiClient.safeGet: upstream errors and I/O failures become ResponseEntity values
+    private CompletableFuture<ResponseEntity<String>> safeGetAsync(String uri) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(uri))
+                    .timeout(readTimeout)
+                    .header("Accept", MediaType.APPLICATION_JSON_VALUE)
+                    .GET()
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                    .body("Error calling external API: " + e.getMessage()));
+        }
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(AsyncApiClient::toResponseEntity)
+                .exceptionally(AsyncApiClient::toErrorResponse);
+    }
+
+    private static ResponseEntity<String> toResponseEntity(HttpResponse<String> response) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(response.statusCode());
+        response.headers().firstValue("Content-Type").ifPresent(ct -> {
+            try {
+                builder.contentType(MediaType.parseMediaType(ct));
+            } catch (Exception ignore) {
+                // invalid content type from upstream: leave it unset
+            }
+        });
+        return builder.body(response.body());
+    }
+
+    private static ResponseEntity<String> toErrorResponse(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        // network/connectivity/timeouts, as ResourceAccessException in the blocking client
+        if (cause instanceof IOException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("External API unreachable: " + cause.getMessage());
+        }
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body("Error calling external API: " + cause.getMessage());
+    }
+}
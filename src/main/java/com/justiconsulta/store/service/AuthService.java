@@ -6,6 +6,7 @@ import com.justiconsulta.store.model.User;
 import com.justiconsulta.store.repository.UserRepository;
 import com.justiconsulta.store.security.TokenValidationResult;
 import com.justiconsulta.store.security.TokenValidator;
+import com.justiconsulta.store.security.UserIdentityCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.stereotype.Service;
@@ -23,6 +24,7 @@ public class AuthService {
     private final JwtTokenService jwtTokenService;
     private final SupabaseClient supabaseClient;
     private final TokenValidator tokenValidator;
+    private final UserIdentityCache identityCache;
 
     public String login(String email, String rawPassword) {
         if (rawPassword == null || rawPassword.isEmpty()) {
@@ -81,7 +83,9 @@ public class AuthService {
         newUser.setEncryptedPassword(hashed);
         newUser.setSupabaseUserId(supabaseUserId);
 
-        return userRepository.save(newUser);
+        User saved = userRepository.save(newUser);
+        identityCache.invalidate(saved);
+        return saved;
     }
 
     // New: trigger password recovery flow via Supabase for existing users
@@ -129,6 +133,7 @@ public class AuthService {
             String hashed = BCrypt.hashpw(newPassword, BCrypt.gensalt(12));
             u.setEncryptedPassword(hashed);
             userRepository.save(u);
+            identityCache.invalidate(u);
         }
         // If not present locally, we silently ignore to avoid leaking info. Supabase update already succeeded.
     }
@@ -0,0 +1,252 @@
+package com.justiconsulta.store.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Transporte SMTP para envíos en lote. Mantiene hasta {@code connections} conexiones autenticadas
+ * abiertas entre lotes (el STARTTLS + AUTH se paga una vez por conexión, no por correo), las recicla
+ * cada {@code max-messages-per-connection} mensajes y cierra las que quedan ociosas. El ritmo global
+ * se limita a {@code max-per-second} para no superar los límites del proveedor.
+ */
+@Component
+public class BatchMailTransport {
+    private static final Logger log = LoggerFactory.getLogger(BatchMailTransport.class);
+
+    private final JavaMailSender mailSender;
+    private final int maxMessagesPerConnection;
+    private final long idleMillis;
+    private final long intervalNanos;
+    private final int connections;
+
+    private final Semaphore permits;
+    private final List<PooledTransport> idle = new ArrayList<>();
+    private final ReentrantLock poolLock = new ReentrantLock();
+    private final ReentrantLock throttleLock = new ReentrantLock();
+    private long nextSlotNanos = System.nanoTime();
+
+    private final Timer batchTimer;
+    private final DistributionSummary batchSize;
+    private final DistributionSummary batchThroughput;
+    private final Counter messagesSent;
+    private final Counter messagesFailed;
+    private final Counter connectionsOpened;
+
+    public BatchMailTransport(JavaMailSender mailSender,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.mail.smtp.connections:3}") int connections,
+                              @Value("${app.mail.smtp.max-messages-per-connection:90}") int maxMessagesPerConnection,
+                              @Value("${app.mail.smtp.idle-close-seconds:60}") long idleCloseSeconds,
+                              @Value("${app.mail.smtp.max-per-second:10}") double maxPerSecond) {
+        this.mailSender = mailSender;
+        this.connections = Math.max(1, connections);
+        this.permits = new Semaphore(this.connections);
+        this.maxMessagesPerConnection = Math.max(1, maxMessagesPerConnection);
+        this.idleMillis = TimeUnit.SECONDS.toMillis(idleCloseSeconds);
+        this.intervalNanos = maxPerSecond > 0 ? (long) (1_000_000_000L / maxPerSecond) : 0;
+
+        this.batchTimer = Timer.builder("mail.smtp.batch").register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("mail.smtp.batch.size").register(meterRegistry);
+        this.batchThroughput = DistributionSummary.builder("mail.smtp.batch.throughput")
+                .baseUnit("messages/s").register(meterRegistry);
+        this.messagesSent = Counter.builder("mail.smtp.messages").tag("result", "sent").register(meterRegistry);
+        this.messagesFailed = Counter.builder("mail.smtp.messages").tag("result", "failed").register(meterRegistry);
+        this.connectionsOpened = Counter.builder("mail.smtp.connections.opened").register(meterRegistry);
+    }
+
+    // Number of batches the caller can usefully run in parallel
+    public int connections() {
+        return connections;
+    }
+
+    /**
+     * Envía los mensajes por una sola conexión del pool. Devuelve los que fallaron con su error;
+     * un mapa vacío significa que todos se entregaron al servidor SMTP.
+     */
+    public Map<MimeMessage, Exception> send(List<MimeMessage> messages) throws InterruptedException {
+        Map<MimeMessage, Exception> failures = new IdentityHashMap<>();
+        if (messages.isEmpty()) return failures;
+
+        long start = System.nanoTime();
+        if (!(mailSender instanceof JavaMailSenderImpl impl)) {
+            sendThroughSender(messages, failures);
+        } else {
+            permits.acquire();
+            PooledTransport transport = null;
+            try {
+                transport = borrow();
+                for (MimeMessage message : messages) {
+                    throttle();
+                    transport = sendOne(impl, transport, message, failures);
+                }
+            } finally {
+                giveBack(transport);
+                permits.release();
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        int delivered = messages.size() - failures.size();
+        batchTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        batchSize.record(messages.size());
+        batchThroughput.record(delivered / Math.max(elapsed / 1_000_000_000.0, 0.001));
+        messagesSent.increment(delivered);
+        messagesFailed.increment(failures.size());
+        return failures;
+    }
+
+    private PooledTransport sendOne(JavaMailSenderImpl impl, PooledTransport transport, MimeMessage message,
+                                    Map<MimeMessage, Exception> failures) {
+        try {
+            if (transport == null || !transport.transport.isConnected() || transport.sent >= maxMessagesPerConnection) {
+                close(transport);
+                transport = connect(impl);
+            }
+            message.saveChanges();
+            transport.transport.sendMessage(message, message.getAllRecipients());
+            transport.sent++;
+        } catch (MessagingException e) {
+            failures.put(message, e);
+            // A broken connection is replaced for the next message of the batch
+            if (transport != null && !transport.transport.isConnected()) {
+                close(transport);
+                transport = null;
+            }
+        }
+        return transport;
+    }
+
+    // Fallback for non-JavaMailSenderImpl senders: Spring still sends the whole array over one connection
+    private void sendThroughSender(List<MimeMessage> messages, Map<MimeMessage, Exception> failures) {
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            e.getFailedMessages().forEach((msg, ex) -> {
+                if (msg instanceof MimeMessage mime) failures.put(mime, ex);
+            });
+            if (failures.isEmpty()) messages.forEach(m -> failures.put(m, e));
+        } catch (Exception e) {
+            messages.forEach(m -> failures.put(m, e));
+        }
+    }
+
+    private void throttle() throws InterruptedException {
+        if (intervalNanos <= 0) return;
+        long waitNanos;
+        throttleLock.lock();
+        try {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextSlotNanos);
+            nextSlotNanos = slot + intervalNanos;
+            waitNanos = slot - now;
+        } finally {
+            throttleLock.unlock();
+        }
+        if (waitNanos > 0) TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+
+    private PooledTransport borrow() {
+        poolLock.lock();
+        try {
+            if (!idle.isEmpty()) return idle.remove(idle.size() - 1);
+        } finally {
+            poolLock.unlock();
+        }
+        return null; // connected lazily by sendOne
+    }
+
+    private void giveBack(PooledTransport transport) {
+        if (transport == null) return;
+        if (!transport.transport.isConnected()) {
+            close(transport);
+            return;
+        }
+        transport.lastUsedMillis = System.currentTimeMillis();
+        poolLock.lock();
+        try {
+            idle.add(transport);
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    private PooledTransport connect(JavaMailSenderImpl impl) throws MessagingException {
+        Transport transport = impl.getSession().getTransport(impl.getProtocol() != null ? impl.getProtocol() : "smtp");
+        transport.connect(impl.getHost(), impl.getPort(), impl.getUsername(), impl.getPassword());
+        connectionsOpened.increment();
+        return new PooledTransport(transport);
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.smtp.idle-check-ms:30000}")
+    public void closeIdleConnections() {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        List<PooledTransport> expired = new ArrayList<>();
+        poolLock.lock();
+        try {
+            Iterator<PooledTransport> it = idle.iterator();
+            while (it.hasNext()) {
+                PooledTransport t = it.next();
+                if (t.lastUsedMillis < cutoff) {
+                    expired.add(t);
+                    it.remove();
+                }
+            }
+        } finally {
+            poolLock.unlock();
+        }
+        expired.forEach(this::close);
+    }
+
+    private void close(PooledTransport transport) {
+        if (transport == null) return;
+        try {
+            transport.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Error cerrando conexión SMTP: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poolLock.lock();
+        try {
+            idle.forEach(this::close);
+            idle.clear();
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    private static final class PooledTransport {
+        private final Transport transport;
+        private int sent;
+        private long lastUsedMillis = System.currentTimeMillis();
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+}
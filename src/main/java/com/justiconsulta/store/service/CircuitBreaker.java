@@ -0,0 +1,121 @@
+package com.justiconsulta.store.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Circuit breaker basado en conteo: evalúa la tasa de fallos de las últimas {@code windowSize} llamadas.
+ * CLOSED -> OPEN cuando la tasa supera el umbral; OPEN -> HALF_OPEN pasado {@code openMillis};
+ * en HALF_OPEN se permite una sola llamada de prueba que decide si se cierra o se vuelve a abrir.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openMillis;
+
+    private final boolean[] outcomes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private int index;
+    private int recorded;
+    private int failures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openMillis) {
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openMillis;
+        this.outcomes = new boolean[windowSize];
+    }
+
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+                state = State.HALF_OPEN;
+                trialInFlight = false;
+            }
+            return switch (state) {
+                case CLOSED -> true;
+                case OPEN -> false;
+                case HALF_OPEN -> {
+                    if (trialInFlight) yield false;
+                    trialInFlight = true;
+                    yield true;
+                }
+            };
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onResult(boolean success) {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                trialInFlight = false;
+                if (success) {
+                    reset();
+                } else {
+                    open();
+                }
+                return;
+            }
+            if (state == State.OPEN) return;
+
+            if (recorded == windowSize) {
+                if (!outcomes[index]) failures--;
+            } else {
+                recorded++;
+            }
+            outcomes[index] = success;
+            if (!success) failures++;
+            index = (index + 1) % windowSize;
+
+            if (recorded >= minimumCalls && (double) failures / recorded >= failureRateThreshold) {
+                open();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Devuelve el permiso sin registrar resultado, para cuando la llamada no llegó a hacerse (p. ej. la
+     * rechazó el limitador). En HALF_OPEN libera el cupo de prueba; en CLOSED no toca la ventana.
+     */
+    public void releaseTrial() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) trialInFlight = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State state() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        index = 0;
+        recorded = 0;
+        failures = 0;
+    }
+}
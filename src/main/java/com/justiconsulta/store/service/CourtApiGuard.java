@@ -0,0 +1,199 @@
+package com.justiconsulta.store.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Protección de las llamadas a la API de la Rama Judicial: un circuit breaker por endpoint y un
+ * limitador adaptativo global. Cuando la API está caída o saturada, las llamadas fallan de inmediato
+ * con 503 en lugar de esperar el timeout de lectura completo.
+ * <p>
+ * El tráfico de fondo (detección de cambios) tiene su propio limitador: no gasta los tokens ni reduce
+ * el límite AIMD de las peticiones de usuarios, y en lugar de fallar espera a que haya cupo.
+ */
+@Component
+public class CourtApiGuard {
+
+    public enum Priority { INTERACTIVE, BACKGROUND }
+
+    private final boolean enabled;
+    private final Map<CourtEndpoint, CircuitBreaker> breakers = new EnumMap<>(CourtEndpoint.class);
+    private final Map<Priority, Budget> budgets = new EnumMap<>(Priority.class);
+    private final long backgroundMaxWaitMillis;
+
+    public CourtApiGuard(@Value("${api.external.guard.enabled:true}") boolean enabled,
+                         @Value("${api.external.guard.breaker.window-size:20}") int windowSize,
+                         @Value("${api.external.guard.breaker.minimum-calls:10}") int minimumCalls,
+                         @Value("${api.external.guard.breaker.failure-rate:0.5}") double failureRate,
+                         @Value("${api.external.guard.breaker.open-ms:30000}") long openMillis,
+                         @Value("${api.external.guard.limiter.permits-per-second:20}") double permitsPerSecond,
+                         @Value("${api.external.guard.limiter.burst:40}") double burst,
+                         @Value("${api.external.guard.limiter.initial-limit:10}") int initialLimit,
+                         @Value("${api.external.guard.limiter.min-limit:2}") int minLimit,
+                         @Value("${api.external.guard.limiter.max-limit:50}") int maxLimit,
+                         @Value("${api.external.guard.limiter.target-latency-ms:2000}") long targetLatencyMillis,
+                         @Value("${api.external.guard.limiter.backoff-ratio:0.7}") double backoffRatio,
+                         @Value("${api.external.guard.background.permits-per-second:5}") double backgroundPermitsPerSecond,
+                         @Value("${api.external.guard.background.max-limit:4}") int backgroundMaxLimit,
+                         @Value("${api.external.guard.background.max-wait-ms:30000}") long backgroundMaxWaitMillis,
+                         MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.backgroundMaxWaitMillis = backgroundMaxWaitMillis;
+        budgets.put(Priority.INTERACTIVE, new Budget(Priority.INTERACTIVE,
+                new AdaptiveRateLimiter(permitsPerSecond, burst, initialLimit, minLimit, maxLimit,
+                        targetLatencyMillis, backoffRatio), meterRegistry));
+        // Sin ráfaga: el poller recorre todos los radicados y debe repartirse a ritmo constante
+        budgets.put(Priority.BACKGROUND, new Budget(Priority.BACKGROUND,
+                new AdaptiveRateLimiter(backgroundPermitsPerSecond, Math.max(1, backgroundPermitsPerSecond),
+                        Math.min(2, backgroundMaxLimit), 1, backgroundMaxLimit, targetLatencyMillis, backoffRatio),
+                meterRegistry));
+
+        for (CourtEndpoint endpoint : CourtEndpoint.values()) {
+            CircuitBreaker breaker = new CircuitBreaker(windowSize, minimumCalls, failureRate, openMillis);
+            breakers.put(endpoint, breaker);
+            // 0 = CLOSED, 1 = HALF_OPEN, 2 = OPEN
+            Gauge.builder("court.api.circuit.state", breaker, b -> b.state().ordinal())
+                    .tag("endpoint", endpoint.key())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Solicita permiso para llamar al endpoint. Si se concede, el llamador debe invocar
+     * {@link Permit#complete(ResponseEntity)} con la respuesta obtenida.
+     */
+    public Permit tryAcquire(CourtEndpoint endpoint) {
+        return tryAcquire(endpoint, Priority.INTERACTIVE);
+    }
+
+    /**
+     * Como {@link #tryAcquire(CourtEndpoint)}, con el presupuesto de la prioridad indicada. Las llamadas
+     * BACKGROUND que no tienen cupo esperan hasta {@code background.max-wait-ms} antes de rechazarse;
+     * un circuito abierto se rechaza siempre de inmediato.
+     */
+    public Permit tryAcquire(CourtEndpoint endpoint, Priority priority) {
+        if (!enabled) return Permit.UNGUARDED;
+
+        Budget budget = budgets.get(priority);
+        long deadline = priority == Priority.BACKGROUND ? System.nanoTime() + backgroundMaxWaitMillis * 1_000_000L : 0;
+        CircuitBreaker breaker = breakers.get(endpoint);
+        while (true) {
+            if (!breaker.tryAcquire()) {
+                budget.rejectedOpen.increment();
+                return Permit.rejected("Court API temporarily unavailable (circuit open)");
+            }
+            AdaptiveRateLimiter.Rejection rejection = budget.limiter.tryAcquire();
+            if (rejection == AdaptiveRateLimiter.Rejection.NONE) {
+                return new Permit(true, null, breaker, budget.limiter, System.nanoTime());
+            }
+            // The call never happened: free a half-open trial slot without recording an outcome
+            breaker.releaseTrial();
+            if (priority == Priority.BACKGROUND && System.nanoTime() < deadline && pause(budget)) {
+                continue;
+            }
+            if (rejection == AdaptiveRateLimiter.Rejection.RATE) {
+                budget.rejectedRate.increment();
+            } else {
+                budget.rejectedConcurrency.increment();
+            }
+            return Permit.rejected("Court API rate limit reached, retry later");
+        }
+    }
+
+    // Roughly one token interval; false if the waiting thread was interrupted
+    private static boolean pause(Budget budget) {
+        try {
+            Thread.sleep(Math.max(20L, budget.pauseMillis));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public CircuitBreaker.State state(CourtEndpoint endpoint) {
+        return breakers.get(endpoint).state();
+    }
+
+    // Upstream 5xx, 429 and local I/O failures count against the breaker and shrink the AIMD limit;
+    // a 429 is the court API asking us to slow down, so it must never count as a fast success.
+    // Other 4xx are valid answers
+    static boolean isFailure(ResponseEntity<String> response) {
+        return response == null || response.getStatusCode().is5xxServerError()
+                || response.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private static final class Budget {
+        private final AdaptiveRateLimiter limiter;
+        private final long pauseMillis;
+        private final Counter rejectedOpen;
+        private final Counter rejectedRate;
+        private final Counter rejectedConcurrency;
+
+        private Budget(Priority priority, AdaptiveRateLimiter limiter, MeterRegistry meterRegistry) {
+            this.limiter = limiter;
+            this.pauseMillis = (long) (1000 / Math.max(0.001, limiter.permitsPerSecond()));
+            String tag = priority.name().toLowerCase(Locale.ROOT);
+            Gauge.builder("court.api.limiter.limit", limiter, AdaptiveRateLimiter::limit)
+                    .tag("priority", tag).register(meterRegistry);
+            Gauge.builder("court.api.limiter.in-flight", limiter, AdaptiveRateLimiter::inFlight)
+                    .tag("priority", tag).register(meterRegistry);
+            Gauge.builder("court.api.limiter.tokens", limiter, AdaptiveRateLimiter::availableTokens)
+                    .tag("priority", tag).register(meterRegistry);
+            this.rejectedOpen = rejected(meterRegistry, "circuit-open", tag);
+            this.rejectedRate = rejected(meterRegistry, "rate", tag);
+            this.rejectedConcurrency = rejected(meterRegistry, "concurrency", tag);
+        }
+
+        private static Counter rejected(MeterRegistry meterRegistry, String reason, String priority) {
+            return Counter.builder("court.api.rejected").tag("reason", reason).tag("priority", priority)
+                    .register(meterRegistry);
+        }
+    }
+
+    public static final class Permit {
+        static final Permit UNGUARDED = new Permit(true, null, null, null, 0);
+
+        private final boolean granted;
+        private final String reason;
+        private final CircuitBreaker breaker;
+        private final AdaptiveRateLimiter limiter;
+        private final long startNanos;
+
+        private Permit(boolean granted, String reason, CircuitBreaker breaker, AdaptiveRateLimiter limiter, long startNanos) {
+            this.granted = granted;
+            this.reason = reason;
+            this.breaker = breaker;
+            this.limiter = limiter;
+            this.startNanos = startNanos;
+        }
+
+        static Permit rejected(String reason) {
+            return new Permit(false, reason, null, null, 0);
+        }
+
+        public boolean isGranted() {
+            return granted;
+        }
+
+        public ResponseEntity<String> rejectionResponse() {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(reason);
+        }
+
+        public void complete(ResponseEntity<String> response) {
+            if (breaker == null) return;
+            boolean success = !isFailure(response);
+            breaker.onResult(success);
+            limiter.release(success, System.nanoTime() - startNanos);
+        }
+    }
+}
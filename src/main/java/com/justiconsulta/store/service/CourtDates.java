@@ -0,0 +1,38 @@
+package com.justiconsulta.store.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+
+/**
+ * Conversión de fechas de la API de la Rama Judicial. La API devuelve fechas sin zona
+ * (p. ej. "2024-03-01T00:00:00"), que se interpretan en hora de Colombia.
+ */
+public final class CourtDates {
+    public static final ZoneId COURT_ZONE = ZoneId.of("America/Bogota");
+
+    private CourtDates() {
+    }
+
+    public static Optional<OffsetDateTime> parse(String value) {
+        if (value == null || value.isBlank()) return Optional.empty();
+        String text = value.trim();
+        try {
+            return Optional.of(OffsetDateTime.parse(text));
+        } catch (Exception ignore) {
+            // sin offset: probar como fecha/hora local
+        }
+        try {
+            return Optional.of(LocalDateTime.parse(text).atZone(COURT_ZONE).toOffsetDateTime());
+        } catch (Exception ignore) {
+            // probar como fecha simple
+        }
+        try {
+            return Optional.of(LocalDate.parse(text).atStartOfDay(COURT_ZONE).toOffsetDateTime());
+        } catch (Exception ignore) {
+            return Optional.empty();
+        }
+    }
+}
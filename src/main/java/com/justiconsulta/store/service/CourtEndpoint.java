@@ -0,0 +1,24 @@
+package com.justiconsulta.store.service;
+
+/**
+ * Endpoints de la API de la Rama Judicial consumidos por {@link ApiClient}.
+ * Se usan para separar la configuración (TTL de caché, métricas) por endpoint.
+ */
+public enum CourtEndpoint {
+    NUMERO_RADICACION("numero-radicacion"),
+    PROCESS_DETAIL("detail"),
+    PROCESS_SUBJECTS("subjects"),
+    PROCESS_DOCUMENTS("documents"),
+    PROCESS_ACTUACIONES("actuaciones"),
+    OTHER("other");
+
+    private final String key;
+
+    CourtEndpoint(String key) {
+        this.key = key;
+    }
+
+    public String key() {
+        return key;
+    }
+}
@@ -0,0 +1,236 @@
+package com.justiconsulta.store.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Extrae campos sueltos de las respuestas de la Rama Judicial recorriendo el flujo de tokens una sola
+ * vez con el JsonFactory compartido de Spring, sin construir el árbol JsonNode. Las rutas se compilan
+ * en un {@link Query} (p. ej. {@code procesos[0].idProceso}); las ramas que ninguna ruta necesita se
+ * saltan con skipChildren y el recorrido termina en cuanto cada campo tiene su ruta preferida.
+ */
+@Component
+public class CourtPayloadExtractor {
+
+    // Rutas usadas sobre la respuesta de /Procesos/Consulta/NumeroRadicacion
+    public static final String FIRST_PROCESS_ID = "procesos[0].idProceso";
+    public static final String FIRST_PROCESS_LAST_ACTION = "procesos[0].fechaUltimaActuacion";
+    public static final String FIRST_PROCESS_DESPACHO = "procesos[0].despacho";
+
+    private static final String FIRST_ELEMENT = "[0]";
+
+    private final JsonFactory jsonFactory;
+
+    public CourtPayloadExtractor(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Devuelve el texto de cada ruta encontrada con valor escalar (números como su literal). Las rutas
+     * ausentes, nulas o cuyo valor es un objeto/arreglo no aparecen. Un cuerpo que no es JSON válido
+     * devuelve lo que se alcanzó a leer antes del error.
+     */
+    public Extracted extract(String body, Query query) {
+        Extracted out = new Extracted(query);
+        if (body == null || body.isBlank()) return out;
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != null) {
+                walk(parser, query.root, out, true);
+            }
+        } catch (IOException e) {
+            out.malformed = true;
+        }
+        return out;
+    }
+
+    public Optional<String> extract(String body, String path) {
+        return extract(body, Query.of(path)).get(path);
+    }
+
+    // Candidatos del idProceso que se guarda en el historial, en el orden en que se prueban
+    private static final String[] HISTORY_ID_PATHS = {"idProceso", "id", "id_proceso", "[0].idProceso", "[0].id", "[0].id_proceso"};
+    private static final Query HISTORY_ID_QUERY = Query.withRootScalars(HISTORY_ID_PATHS);
+
+    /**
+     * idProceso para el historial de consultas: el primer candidato no vacío de la lista o, si ninguno
+     * aparece en el cuerpo, el primer escalar de la raíz con forma de id corto (3 a 12 dígitos).
+     */
+    public Optional<String> extractIdProceso(String body) {
+        Extracted fields = extract(body, HISTORY_ID_QUERY);
+        boolean anyCandidate = false;
+        for (String path : HISTORY_ID_PATHS) {
+            String value = fields.values.get(path);
+            if (value == null) continue;
+            anyCandidate = true;
+            if (!value.isBlank()) return Optional.of(value);
+        }
+        if (!anyCandidate) {
+            for (String value : fields.rootScalars) {
+                if (Radicado.isDigits(value, 3, 12)) return Optional.of(value);
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Returns true once every requested path is resolved, so callers can stop reading
+    private boolean walk(JsonParser parser, Node node, Extracted out, boolean atRoot) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (visit(parser, node.children.get(name), value, out, atRoot)) return true;
+            }
+        } else if (token == JsonToken.START_ARRAY) {
+            Node first = node.children.get(FIRST_ELEMENT);
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.END_ARRAY) return false;
+            if (visit(parser, first, value, out, false)) return true;
+            // Only the first element is ever addressed; the rest is skipped without materializing it
+            while ((value = parser.nextToken()) != JsonToken.END_ARRAY && value != null) {
+                if (value.isStructStart()) parser.skipChildren();
+            }
+        }
+        return false;
+    }
+
+    private boolean visit(JsonParser parser, Node child, JsonToken value, Extracted out, boolean atRoot) throws IOException {
+        if (child != null && value.isStructStart() && !child.children.isEmpty()) {
+            return walk(parser, child, out, false);
+        }
+        if (value.isScalarValue() && value != JsonToken.VALUE_NULL) {
+            if (child != null && child.path != null) {
+                String text = parser.getText();
+                if (out.values.putIfAbsent(child.path, text) == null && child.rank == 0 && !text.isBlank()) {
+                    out.resolvedFields++;
+                    if (out.isComplete()) return true;
+                }
+            } else if (atRoot && out.query.collectRootScalars) {
+                out.rootScalars.add(parser.getText());
+            }
+        } else if (value.isStructStart()) {
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * Conjunto de rutas compilado en un árbol de segmentos; inmutable y reutilizable entre llamadas.
+     * Segmentos: nombres de campo separados por puntos y {@code [0]} para el primer elemento de un arreglo.
+     * <p>
+     * Las rutas se agrupan por campo, cada grupo en orden de preferencia. Un campo queda resuelto cuando
+     * aparece su primera ruta con valor no vacío; las alternativas solo se leen mientras eso no ocurra.
+     */
+    public static final class Query {
+        private final Node root = new Node(null);
+        private final int fieldCount;
+        private final boolean collectRootScalars;
+
+        private Query(List<List<String>> fields, boolean collectRootScalars) {
+            for (List<String> candidates : fields) {
+                for (int rank = 0; rank < candidates.size(); rank++) {
+                    Node node = root;
+                    for (String segment : segments(candidates.get(rank))) {
+                        node = node.children.computeIfAbsent(segment, s -> new Node(null));
+                    }
+                    if (node.path != null) {
+                        throw new IllegalArgumentException("Ruta repetida en la consulta: " + candidates.get(rank));
+                    }
+                    node.path = candidates.get(rank);
+                    node.rank = rank;
+                }
+            }
+            this.fieldCount = fields.size();
+            this.collectRootScalars = collectRootScalars;
+        }
+
+        // Un campo por ruta, sin alternativas
+        public static Query of(String... paths) {
+            return new Query(Arrays.stream(paths).map(List::of).toList(), false);
+        }
+
+        /**
+         * Un campo por arreglo, con sus rutas candidatas en orden de preferencia. Cada ruta se consulta
+         * después con {@link Extracted#get(String)}; elegir entre las encontradas le toca al llamador.
+         */
+        public static Query ofFields(String[]... candidates) {
+            return new Query(Arrays.stream(candidates).map(List::of).toList(), false);
+        }
+
+        /**
+         * Además de las rutas, recoge en orden los valores escalares de todos los demás campos del
+         * objeto raíz. Desactiva la parada anticipada, porque hay que leer el objeto raíz completo.
+         */
+        public static Query withRootScalars(String... paths) {
+            return new Query(Arrays.stream(paths).map(List::of).toList(), true);
+        }
+
+        private static List<String> segments(String path) {
+            List<String> segments = new ArrayList<>();
+            for (String part : path.split("\\.")) {
+                int bracket = part.indexOf('[');
+                if (bracket < 0) {
+                    segments.add(part);
+                    continue;
+                }
+                if (!part.endsWith(FIRST_ELEMENT) || part.indexOf('[', bracket + 1) >= 0) {
+                    throw new IllegalArgumentException("Solo se admite [0] al final del segmento: " + path);
+                }
+                if (bracket > 0) segments.add(part.substring(0, bracket));
+                segments.add(FIRST_ELEMENT);
+            }
+            return segments;
+        }
+    }
+
+    public static final class Extracted {
+        private final Query query;
+        private final Map<String, String> values = new HashMap<>(8);
+        private final List<String> rootScalars = new ArrayList<>();
+        private int resolvedFields;
+        private boolean malformed;
+
+        private Extracted(Query query) {
+            this.query = query;
+        }
+
+        public Optional<String> get(String path) {
+            return Optional.ofNullable(values.get(path));
+        }
+
+        // Valores escalares del objeto raíz no cubiertos por ninguna ruta (solo con withRootScalars)
+        public List<String> rootScalars() {
+            return rootScalars;
+        }
+
+        public boolean isMalformed() {
+            return malformed;
+        }
+
+        private boolean isComplete() {
+            return !query.collectRootScalars && resolvedFields == query.fieldCount;
+        }
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>(4);
+        private String path;
+        // Posición de la ruta entre las candidatas de su campo; 0 = preferida
+        private int rank;
+
+        private Node(String path) {
+            this.path = path;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.justiconsulta.store.service;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+/**
+ * Lo que se necesita de la respuesta de /Procesos/Consulta/NumeroRadicacion, leído en una sola pasada.
+ * Se obtiene una vez por petición con {@link ApiClient#getProcessSnapshot(String)} y se pasa a los
+ * métodos auxiliares en lugar de volver a consultar la API para cada campo.
+ * <p>
+ * UNAVAILABLE separa "la API no pudo responder" (5xx, 429, circuito abierto, error de red) de
+ * "el proceso no existe", para no contestar lo segundo cuando la causa es lo primero.
+ */
+public record CourtProcessSnapshot(Status status, String idProceso, OffsetDateTime lastActionDate, String despacho) {
+
+    public enum Status { FOUND, NOT_FOUND, UNAVAILABLE }
+
+    private static final CourtProcessSnapshot NOT_FOUND = new CourtProcessSnapshot(Status.NOT_FOUND, null, null, null);
+    private static final CourtProcessSnapshot UNAVAILABLE = new CourtProcessSnapshot(Status.UNAVAILABLE, null, null, null);
+
+    // Campos de fecha de última actuación, en orden de preferencia
+    private static final String[] LAST_ACTION_PATHS = {
+            CourtPayloadExtractor.FIRST_PROCESS_LAST_ACTION,
+            "fechaUltimaActuacion", "lastActionDate", "ultimaActuacionFecha",
+            "ultimaActuacion.fechaActuacion",
+            "[0].fechaActuacion"
+    };
+    private static final String ROOT_DESPACHO = "despacho";
+    // Las rutas preferidas están todas en procesos[0]: con ellas la lectura se detiene dentro de ese objeto
+    private static final CourtPayloadExtractor.Query QUERY = CourtPayloadExtractor.Query.ofFields(
+            new String[]{CourtPayloadExtractor.FIRST_PROCESS_ID},
+            new String[]{CourtPayloadExtractor.FIRST_PROCESS_DESPACHO, ROOT_DESPACHO},
+            LAST_ACTION_PATHS);
+
+    public static CourtProcessSnapshot notFound() {
+        return NOT_FOUND;
+    }
+
+    public static CourtProcessSnapshot unavailable() {
+        return UNAVAILABLE;
+    }
+
+    /**
+     * Lee idProceso, fecha de última actuación y despacho de un cuerpo ya recibido con 2xx. El llamador
+     * decide si la respuesta cuenta como encontrada; aquí solo se extraen los campos.
+     */
+    public static CourtProcessSnapshot parse(CourtPayloadExtractor extractor, String body) {
+        CourtPayloadExtractor.Extracted fields = extractor.extract(body, QUERY);
+        String idProceso = fields.get(CourtPayloadExtractor.FIRST_PROCESS_ID)
+                .filter(id -> !id.isBlank())
+                .orElse(null);
+        OffsetDateTime lastAction = null;
+        for (String path : LAST_ACTION_PATHS) {
+            Optional<OffsetDateTime> date = fields.get(path).flatMap(CourtDates::parse);
+            if (date.isPresent()) {
+                lastAction = date.get();
+                break;
+            }
+        }
+        // Campo "despacho" del primer proceso o, como alternativa, del objeto raíz
+        String despacho = fields.get(CourtPayloadExtractor.FIRST_PROCESS_DESPACHO)
+                .or(() -> fields.get(ROOT_DESPACHO))
+                .orElse(null);
+        return new CourtProcessSnapshot(Status.FOUND, idProceso, lastAction, despacho);
+    }
+
+    public boolean found() {
+        return status == Status.FOUND;
+    }
+
+    public boolean isUnavailable() {
+        return status == Status.UNAVAILABLE;
+    }
+
+    public Optional<String> idProcesoIfPresent() {
+        return Optional.ofNullable(idProceso);
+    }
+
+    public Optional<OffsetDateTime> lastActionDateIfPresent() {
+        return Optional.ofNullable(lastActionDate);
+    }
+
+    public Optional<String> despachoIfPresent() {
+        return Optional.ofNullable(despacho);
+    }
+}
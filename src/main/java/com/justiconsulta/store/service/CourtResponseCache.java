@@ -0,0 +1,272 @@
+package com.justiconsulta.store.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caché en memoria de respuestas exitosas de la API de la Rama Judicial.
+ * Las entradas se indexan por endpoint + URI completa, expiran según el TTL configurado
+ * para cada endpoint y se desalojan en orden LRU cuando se supera el límite de entradas o de bytes.
+ * <p>
+ * Pasado el TTL la entrada no se borra de inmediato: durante la ventana stale-while-revalidate se
+ * sirve tal cual mientras el llamador la refresca en segundo plano, y durante la ventana stale-if-error
+ * se usa como respaldo si la API externa falla. Toda respuesta servida desde aquí lleva el header Age.
+ */
+@Component
+public class CourtResponseCache {
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final Map<CourtEndpoint, Duration> ttls = new EnumMap<>(CourtEndpoint.class);
+    private final Duration staleWhileRevalidate;
+    private final Duration staleIfError;
+
+    // LinkedHashMap en orden de acceso => el primer elemento es el menos usado recientemente
+    private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private long currentBytes;
+    private Clock clock = Clock.systemUTC();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong staleIfErrorHits = new AtomicLong();
+
+    public enum Freshness { FRESH, STALE, STALE_IF_ERROR }
+
+    /**
+     * Resultado de una consulta a la caché. {@code STALE} puede servirse de inmediato (refrescando en segundo
+     * plano); {@code STALE_IF_ERROR} solo debe usarse si la llamada a la API externa falla.
+     */
+    public record Lookup(ResponseEntity<String> response, Freshness freshness) {
+    }
+
+    public CourtResponseCache(@Value("${api.external.cache.enabled:true}") boolean enabled,
+                              @Value("${api.external.cache.max-entries:2000}") int maxEntries,
+                              @Value("${api.external.cache.max-bytes:33554432}") long maxBytes,
+                              @Value("${api.external.cache.ttl-seconds.numero-radicacion:60}") long numeroRadicacionTtl,
+                              @Value("${api.external.cache.ttl-seconds.detail:300}") long detailTtl,
+                              @Value("${api.external.cache.ttl-seconds.subjects:300}") long subjectsTtl,
+                              @Value("${api.external.cache.ttl-seconds.documents:300}") long documentsTtl,
+                              @Value("${api.external.cache.ttl-seconds.actuaciones:120}") long actuacionesTtl,
+                              @Value("${api.external.cache.stale-while-revalidate-seconds:600}") long staleWhileRevalidateSeconds,
+                              @Value("${api.external.cache.stale-if-error-seconds:3600}") long staleIfErrorSeconds,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.staleWhileRevalidate = Duration.ofSeconds(Math.max(0, staleWhileRevalidateSeconds));
+        this.staleIfError = Duration.ofSeconds(Math.max(0, staleIfErrorSeconds));
+        ttls.put(CourtEndpoint.NUMERO_RADICACION, Duration.ofSeconds(numeroRadicacionTtl));
+        ttls.put(CourtEndpoint.PROCESS_DETAIL, Duration.ofSeconds(detailTtl));
+        ttls.put(CourtEndpoint.PROCESS_SUBJECTS, Duration.ofSeconds(subjectsTtl));
+        ttls.put(CourtEndpoint.PROCESS_DOCUMENTS, Duration.ofSeconds(documentsTtl));
+        ttls.put(CourtEndpoint.PROCESS_ACTUACIONES, Duration.ofSeconds(actuacionesTtl));
+        ttls.put(CourtEndpoint.OTHER, Duration.ZERO);
+
+        FunctionCounter.builder("court.cache.hits", hits, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("court.cache.misses", misses, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("court.cache.evictions", evictions, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("court.cache.stale", staleHits, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("court.cache.stale-if-error", staleIfErrorHits, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("court.cache.entries", this, CourtResponseCache::size).register(meterRegistry);
+        Gauge.builder("court.cache.bytes", this, CourtResponseCache::bytes).register(meterRegistry);
+    }
+
+    // Only fresh entries: for callers that never want stale data
+    public Optional<ResponseEntity<String>> get(CourtEndpoint endpoint, String uri) {
+        return lookup(endpoint, uri)
+                .filter(l -> l.freshness() == Freshness.FRESH)
+                .map(Lookup::response);
+    }
+
+    public Optional<Lookup> lookup(CourtEndpoint endpoint, String uri) {
+        if (!isCacheable(endpoint)) return Optional.empty();
+        String key = key(endpoint, uri);
+        Instant now = clock.instant();
+        lock.lock();
+        try {
+            CachedResponse cached = entries.get(key);
+            if (cached == null) {
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+            Freshness freshness;
+            if (now.isBefore(cached.freshUntil())) {
+                freshness = Freshness.FRESH;
+                hits.incrementAndGet();
+            } else if (now.isBefore(cached.freshUntil().plus(staleWhileRevalidate))) {
+                freshness = Freshness.STALE;
+                staleHits.incrementAndGet();
+            } else if (now.isBefore(cached.freshUntil().plus(staleIfError))) {
+                freshness = Freshness.STALE_IF_ERROR;
+                misses.incrementAndGet();
+            } else {
+                remove(key);
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+            return Optional.of(new Lookup(cached.toResponseEntity(now), freshness));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Tests move time forward through this instead of sleeping past TTLs
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    // Called when a STALE_IF_ERROR entry was actually served because the upstream failed
+    public void recordStaleIfError() {
+        staleIfErrorHits.incrementAndGet();
+    }
+
+    // Only successful responses with a body are cached; errors must always reach the upstream again
+    public void put(CourtEndpoint endpoint, String uri, ResponseEntity<String> response) {
+        store(endpoint, uri, response, false);
+    }
+
+    // Like put, but only refreshes an entry that is already cached; never adds a new one
+    public void replace(CourtEndpoint endpoint, String uri, ResponseEntity<String> response) {
+        store(endpoint, uri, response, true);
+    }
+
+    private void store(CourtEndpoint endpoint, String uri, ResponseEntity<String> response, boolean onlyIfPresent) {
+        if (!isCacheable(endpoint) || response == null || !response.getStatusCode().is2xxSuccessful()) return;
+        String body = response.getBody();
+        if (body == null || body.isBlank()) return;
+
+        Instant now = clock.instant();
+        CachedResponse cached = new CachedResponse(response.getStatusCode(), response.getHeaders().getContentType(),
+                body, now, now.plus(ttls.get(endpoint)));
+        if (cached.weight() > maxBytes) return;
+
+        String key = key(endpoint, uri);
+        lock.lock();
+        try {
+            if (onlyIfPresent && !entries.containsKey(key)) return;
+            remove(key);
+            entries.put(key, cached);
+            currentBytes += cached.weight();
+            evictIfNeeded();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(CourtEndpoint endpoint, String uri) {
+        lock.lock();
+        try {
+            remove(key(endpoint, uri));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+            currentBytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long bytes() {
+        lock.lock();
+        try {
+            return currentBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    public long evictionCount() {
+        return evictions.get();
+    }
+
+    public long staleCount() {
+        return staleHits.get();
+    }
+
+    private boolean isCacheable(CourtEndpoint endpoint) {
+        if (!enabled || endpoint == null) return false;
+        Duration ttl = ttls.get(endpoint);
+        return ttl != null && !ttl.isZero() && !ttl.isNegative();
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, CachedResponse>> it = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || currentBytes > maxBytes) && it.hasNext()) {
+            Map.Entry<String, CachedResponse> eldest = it.next();
+            currentBytes -= eldest.getValue().weight();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(String key) {
+        CachedResponse previous = entries.remove(key);
+        if (previous != null) currentBytes -= previous.weight();
+    }
+
+    private static String key(CourtEndpoint endpoint, String uri) {
+        return endpoint.key() + '|' + uri;
+    }
+
+    private record CachedResponse(HttpStatusCode status, MediaType contentType, String body,
+                                  Instant storedAt, Instant freshUntil) {
+
+        // Approximate heap footprint: two bytes per char plus a fixed overhead per entry
+        long weight() {
+            return (long) body.length() * 2 + 64;
+        }
+
+        ResponseEntity<String> toResponseEntity(Instant now) {
+            ResponseEntity.BodyBuilder builder = ResponseEntity.status(status);
+            if (contentType != null) builder.contentType(contentType);
+            long age = Math.max(0, Duration.between(storedAt, now).getSeconds());
+            builder.header(HttpHeaders.AGE, Long.toString(age));
+            return builder.body(body);
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.justiconsulta.store.service;
+
+import com.justiconsulta.store.model.EmailOutbox;
+import com.justiconsulta.store.model.EmailOutbox.Status;
+import com.justiconsulta.store.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bandeja de salida de correos (tabla email_outbox). {@link #enqueue} solo inserta la fila, así que
+ * ninguna respuesta de la API espera al SMTP. Un hilo de despacho reclama las filas pendientes y las
+ * envía por lotes en el taskExecutor "mail-" de WebConfig, reutilizando las conexiones SMTP de
+ * {@link BatchMailTransport}; los fallos se reintentan con backoff exponencial
+ * hasta {@code max-attempts}. El mismo correo al mismo destinatario solo se encola una vez por ventana.
+ */
+@Service
+public class EmailOutboxService {
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxService.class);
+
+    private final EmailOutboxRepository outboxRepository;
+    private final JavaMailSender mailSender;
+    private final BatchMailTransport mailTransport;
+    private final Executor mailExecutor;
+    // Single dispatcher: claims rows and hands them to the mail- workers, never sends itself
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("mail-outbox-"));
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+    private final String fromEmail;
+    private final String fromName;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final Duration dedupeWindow;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final Counter enqueued;
+    private final Counter deduplicated;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+
+    public EmailOutboxService(EmailOutboxRepository outboxRepository,
+                              JavaMailSender mailSender,
+                              BatchMailTransport mailTransport,
+                              @Qualifier("taskExecutor") Executor mailExecutor,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.mail.from}") String fromEmail,
+                              @Value("${app.mail.from-name}") String fromName,
+                              @Value("${app.mail.outbox.batch-size:100}") int batchSize,
+                              @Value("${app.mail.outbox.max-attempts:6}") int maxAttempts,
+                              @Value("${app.mail.outbox.backoff-base-seconds:30}") long backoffBaseSeconds,
+                              @Value("${app.mail.outbox.backoff-max-seconds:3600}") long backoffMaxSeconds,
+                              @Value("${app.mail.outbox.lease-seconds:300}") long leaseSeconds,
+                              @Value("${app.mail.outbox.dedupe-window-minutes:30}") long dedupeWindowMinutes) {
+        this.outboxRepository = outboxRepository;
+        this.mailSender = mailSender;
+        this.mailTransport = mailTransport;
+        this.mailExecutor = mailExecutor;
+        this.fromEmail = fromEmail;
+        this.fromName = fromName;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = Duration.ofSeconds(backoffBaseSeconds);
+        this.maxBackoff = Duration.ofSeconds(backoffMaxSeconds);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.dedupeWindow = Duration.ofMinutes(dedupeWindowMinutes);
+
+        Gauge.builder("mail.outbox.pending", pending, AtomicLong::get).register(meterRegistry);
+        this.enqueued = Counter.builder("mail.outbox.enqueued").register(meterRegistry);
+        this.deduplicated = Counter.builder("mail.outbox.deduplicated").register(meterRegistry);
+        this.sent = Counter.builder("mail.outbox.sent").register(meterRegistry);
+        this.retried = Counter.builder("mail.outbox.retried").register(meterRegistry);
+        this.failed = Counter.builder("mail.outbox.failed").register(meterRegistry);
+    }
+
+    /**
+     * Encola un correo HTML. Devuelve false si un correo idéntico al mismo destinatario ya se encoló
+     * dentro de la ventana de deduplicación.
+     */
+    public boolean enqueue(String to, String subject, String htmlContent) {
+        OffsetDateTime now = OffsetDateTime.now();
+        String dedupeKey = dedupeKey(to, subject, htmlContent);
+        if (outboxRepository.existsByDedupeKeyAndCreatedAtAfter(dedupeKey, now.minus(dedupeWindow))) {
+            deduplicated.increment();
+            log.debug("Correo duplicado para {} ({}), no se encola", to, subject);
+            return false;
+        }
+
+        EmailOutbox row = new EmailOutbox();
+        row.setRecipient(to);
+        row.setSubject(subject);
+        row.setHtmlBody(htmlContent);
+        row.setDedupeKey(dedupeKey);
+        row.setStatus(Status.PENDING);
+        row.setAttempts(0);
+        row.setNextAttemptAt(now);
+        row.setCreatedAt(now);
+        outboxRepository.save(row);
+        enqueued.increment();
+        pending.incrementAndGet();
+
+        // Inside a transaction the row is only visible to the dispatcher after commit
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    requestDrain();
+                }
+            });
+        } else {
+            requestDrain();
+        }
+        return true;
+    }
+
+    // Safety net for retries whose backoff expired and for rows enqueued by other instances
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-ms:10000}")
+    public void poll() {
+        requestDrain();
+    }
+
+    private void requestDrain() {
+        if (!drainRequested.compareAndSet(false, true)) return;
+        try {
+            dispatcher.execute(() -> {
+                drainRequested.set(false);
+                drain();
+            });
+        } catch (RejectedExecutionException e) {
+            drainRequested.set(false);
+        }
+    }
+
+    private void drain() {
+        try {
+            OffsetDateTime now = OffsetDateTime.now();
+            outboxRepository.releaseExpiredLeases(now);
+            while (true) {
+                List<UUID> due = outboxRepository.findDueIds(now, PageRequest.of(0, batchSize));
+                if (due.isEmpty()) break;
+
+                List<UUID> claimed = new ArrayList<>(due.size());
+                OffsetDateTime leaseUntil = OffsetDateTime.now().plus(lease);
+                for (UUID id : due) {
+                    if (outboxRepository.claim(id, leaseUntil) == 1) claimed.add(id);
+                }
+                if (!claimed.isEmpty()) deliverBatch(outboxRepository.findAllById(claimed));
+                if (due.size() < batchSize) break;
+            }
+            pending.set(outboxRepository.countByStatus(Status.PENDING));
+        } catch (Exception e) {
+            log.error("Error procesando la bandeja de salida de correos: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reparte el lote entre las conexiones SMTP de {@link BatchMailTransport}: cada trozo viaja por una
+     * sola conexión en un worker "mail-", y los resultados se marcan fila a fila (los enviados en un
+     * único UPDATE).
+     */
+    private void deliverBatch(List<EmailOutbox> rows) {
+        Map<MimeMessage, EmailOutbox> byMessage = new IdentityHashMap<>(rows.size() * 2);
+        List<MimeMessage> messages = new ArrayList<>(rows.size());
+        for (EmailOutbox row : rows) {
+            try {
+                MimeMessage message = toMimeMessage(row);
+                byMessage.put(message, row);
+                messages.add(message);
+            } catch (Exception e) {
+                recordFailure(row, e);
+            }
+        }
+        if (messages.isEmpty()) return;
+
+        int parts = Math.min(mailTransport.connections(), messages.size());
+        int chunkSize = (messages.size() + parts - 1) / parts;
+        List<CompletableFuture<Map<MimeMessage, Exception>>> sends = new ArrayList<>(parts);
+        for (int from = 0; from < messages.size(); from += chunkSize) {
+            List<MimeMessage> chunk = messages.subList(from, Math.min(from + chunkSize, messages.size()));
+            try {
+                sends.add(CompletableFuture.supplyAsync(() -> sendChunk(chunk), mailExecutor));
+            } catch (RejectedExecutionException e) {
+                // Stays SENDING until the lease expires, then it is picked up again
+                log.warn("Workers de correo saturados, se reintentarán {} correos", chunk.size());
+                chunk.forEach(byMessage::remove);
+            }
+        }
+
+        Map<MimeMessage, Exception> failures = new IdentityHashMap<>();
+        for (CompletableFuture<Map<MimeMessage, Exception>> send : sends) {
+            failures.putAll(send.join());
+        }
+
+        List<UUID> delivered = new ArrayList<>(byMessage.size());
+        byMessage.forEach((message, row) -> {
+            Exception error = failures.get(message);
+            if (error == null) {
+                delivered.add(row.getId());
+            } else {
+                recordFailure(row, error);
+            }
+        });
+        if (!delivered.isEmpty()) {
+            outboxRepository.markSent(delivered, OffsetDateTime.now());
+            sent.increment(delivered.size());
+            log.debug("{} HTML emails sent", delivered.size());
+        }
+    }
+
+    private Map<MimeMessage, Exception> sendChunk(List<MimeMessage> chunk) {
+        try {
+            return mailTransport.send(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Map<MimeMessage, Exception> failures = new IdentityHashMap<>();
+            chunk.forEach(m -> failures.put(m, e));
+            return failures;
+        }
+    }
+
+    private void recordFailure(EmailOutbox row, Exception e) {
+        int attempts = row.getAttempts() + 1;
+        if (attempts >= maxAttempts) {
+            outboxRepository.markAttemptFailed(row.getId(), Status.FAILED, OffsetDateTime.now(), e.getMessage());
+            failed.increment();
+            log.error("Correo a {} descartado tras {} intentos: {}", row.getRecipient(), attempts, e.getMessage());
+        } else {
+            OffsetDateTime next = OffsetDateTime.now().plus(backoff(attempts));
+            outboxRepository.markAttemptFailed(row.getId(), Status.PENDING, next, e.getMessage());
+            retried.increment();
+            log.warn("Error enviando correo a {} (intento {}), reintento a las {}: {}",
+                    row.getRecipient(), attempts, next, e.getMessage());
+        }
+    }
+
+    MimeMessage toMimeMessage(EmailOutbox row) throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        try {
+            helper.setFrom(fromEmail, fromName);
+        } catch (Exception e) {
+            helper.setFrom(fromEmail);
+        }
+        helper.setTo(row.getRecipient());
+        helper.setSubject(row.getSubject());
+        helper.setText(row.getHtmlBody(), true); // true = HTML
+        return message;
+    }
+
+    // base * 2^(attempts - 1), capped at max
+    Duration backoff(int attempts) {
+        Duration delay = baseBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static String dedupeKey(String to, String subject, String body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(to.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(subject.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(body.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+}
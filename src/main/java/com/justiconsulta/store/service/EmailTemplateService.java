@@ -1,21 +1,171 @@
 package com.justiconsulta.store.service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Plantillas HTML de los correos. Cada plantilla se compila una sola vez al arrancar: el contenido se
+ * inserta en la plantilla base, se incrustan el título y {@code ${APP_URL}}, y el resultado se parte en
+ * tramos literales y marcadores {@code {{nombre}}}. Renderizar es una sola pasada que copia tramos y
+ * valores en un buffer del tamaño exacto, sin reprocesar los kilobytes de CSS en cada correo.
+ */
 @Service
 public class EmailTemplateService {
 
+    private final CompiledTemplate welcome;
+    private final CompiledTemplate newActuation;
+    private final CompiledTemplate actuationReminder;
+    private final CompiledTemplate passwordReset;
+    private final CompiledTemplate processDeleted;
+    private final CompiledTemplate multipleActuations;
+    private final CompiledTemplate processAssociated;
+
+    public EmailTemplateService(@Value("${app.url}") String appUrl) {
+        this.welcome = compile(WELCOME, "Bienvenido a JustiConsulta", appUrl,
+                "userName", "userEmail");
+        this.newActuation = compile(NEW_ACTUATION, "Nueva Actuación Procesal", appUrl,
+                "userName", "numeroRadicacion", "fecha", "actuacion");
+        this.actuationReminder = compile(ACTUATION_REMINDER, "Recordatorio de Actuaciones", appUrl,
+                "userName", "cantidadProcesos");
+        this.passwordReset = compile(PASSWORD_RESET, "Recuperación de Contraseña", appUrl,
+                "userName", "resetLink");
+        this.processDeleted = compile(PROCESS_DELETED, "Proceso Eliminado del Seguimiento", appUrl,
+                "userName", "numeroRadicacion");
+        this.multipleActuations = compile(MULTIPLE_ACTUATIONS, "Resumen de Actuaciones", appUrl,
+                "userName", "actuacionesHtml");
+        this.processAssociated = compile(PROCESS_ASSOCIATED, "Proceso Agregado a tu Seguimiento", appUrl,
+                "userName", "numeroRadicacion", "despacho");
+    }
+
+    /**
+     * Plantilla de bienvenida para nuevos usuarios
+     */
+    public String getWelcomeEmailTemplate(String userName, String userEmail) {
+        return welcome.render(userName, userEmail);
+    }
+
+    /**
+     * Plantilla de notificación de nueva actuación procesal
+     */
+    public String getNewActuationEmailTemplate(String userName, String numeroRadicacion,
+                                                String actuacion, String fecha) {
+        return newActuation.render(userName, numeroRadicacion, fecha, actuacion);
+    }
+
+    /**
+     * Plantilla de recordatorio de actuaciones pendientes
+     */
+    public String getActuationReminderEmailTemplate(String userName, int cantidadProcesos) {
+        return actuationReminder.render(userName, Integer.toString(cantidadProcesos));
+    }
+
+    /**
+     * Plantilla de recuperación de contraseña
+     */
+    public String getPasswordResetEmailTemplate(String userName, String resetLink) {
+        return passwordReset.render(userName, resetLink);
+    }
+
     /**
-     * Plantilla base HTML para todos los correos
+     * Plantilla de confirmación de eliminación de proceso
      */
-    private String getBaseTemplate(String content, String title) {
-        return """
+    public String getProcessDeletedEmailTemplate(String userName, String numeroRadicacion) {
+        return processDeleted.render(userName, numeroRadicacion);
+    }
+
+    /**
+     * Plantilla de notificación de múltiples actuaciones
+     */
+    public String getMultipleActuationsEmailTemplate(String userName, String actuacionesHtml) {
+        return multipleActuations.render(userName, actuacionesHtml);
+    }
+
+    /**
+     * Plantilla de notificación de proceso asociado exitosamente
+     */
+    public String getProcessAssociatedEmailTemplate(String userName, String numeroRadicacion, String despacho) {
+        return processAssociated.render(userName, numeroRadicacion, despacho != null ? despacho : "No disponible");
+    }
+
+    /**
+     * Inserta el contenido en la plantilla base, incrusta las constantes y separa los marcadores.
+     * Cada marcador debe estar entre {@code parameters}; su posición ahí es la del argumento de render.
+     */
+    static CompiledTemplate compile(String content, String title, String appUrl, String... parameters) {
+        String source = BASE_TEMPLATE
+                .replace("{{title}}", title)
+                .replace("{{content}}", content)
+                .replace("${APP_URL}", appUrl);
+        List<String> names = Arrays.asList(parameters);
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int from = 0;
+        while (true) {
+            int open = source.indexOf("{{", from);
+            if (open < 0) break;
+            int close = source.indexOf("}}", open + 2);
+            if (close < 0) throw new IllegalStateException("Marcador sin cerrar en la plantilla " + title);
+            String name = source.substring(open + 2, close);
+            int slot = names.indexOf(name);
+            if (slot < 0) throw new IllegalStateException("Marcador desconocido {{" + name + "}} en la plantilla " + title);
+            literals.add(source.substring(from, open));
+            slots.add(slot);
+            from = close + 2;
+        }
+        literals.add(source.substring(from));
+        return new CompiledTemplate(literals.toArray(new String[0]),
+                slots.stream().mapToInt(Integer::intValue).toArray(), parameters.length);
+    }
+
+    /**
+     * Plantilla ya partida: {@code literals[i]} va antes del argumento {@code slots[i]} y el último
+     * literal cierra el documento. Inmutable, así que se comparte entre hilos sin sincronizar.
+     */
+    static final class CompiledTemplate {
+        private final String[] literals;
+        private final int[] slots;
+        private final int arity;
+        private final int literalLength;
+
+        private CompiledTemplate(String[] literals, int[] slots, int arity) {
+            this.literals = literals;
+            this.slots = slots;
+            this.arity = arity;
+            int length = 0;
+            for (String literal : literals) length += literal.length();
+            this.literalLength = length;
+        }
+
+        String render(String... args) {
+            if (args.length != arity) {
+                throw new IllegalArgumentException("Se esperaban " + arity + " argumentos y llegaron " + args.length);
+            }
+            int length = literalLength;
+            for (int slot : slots) {
+                String value = args[slot];
+                length += value != null ? value.length() : 4;
+            }
+            // Sized up front: the builder never grows and toString is the only copy
+            StringBuilder out = new StringBuilder(length);
+            for (int i = 0; i < slots.length; i++) {
+                out.append(literals[i]).append(args[slots[i]]);
+            }
+            return out.append(literals[slots.length]).toString();
+        }
+    }
+
+    // Plantilla base HTML para todos los correos
+    private static final String BASE_TEMPLATE = """
             <!DOCTYPE html>
             <html lang="es">
             <head>
                 <meta charset="UTF-8">
                 <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                <title>%s</title>
+                <title>{{title}}</title>
                 <style>
                     :root{
                         --navy: #0F172A;
@@ -39,7 +189,7 @@ public class EmailTemplateService {
                         overflow: hidden;
                     }
                     .header {
-                        background: linear-gradient(135deg, var(--navy) 0%%, #1a2438 50%%, rgba(217,119,6,0.15) 100%%);
+                        background: linear-gradient(135deg, var(--navy) 0%, #1a2438 50%, rgba(217,119,6,0.15) 100%);
                         padding: 36px 20px;
                         text-align: center;
                     }
@@ -73,7 +223,7 @@ public class EmailTemplateService {
                     .button {
                         display: inline-block;
                         padding: 12px 28px;
-                        background: linear-gradient(135deg, var(--amber) 0%%, #f59e0b 100%%);
+                        background: linear-gradient(135deg, var(--amber) 0%, #f59e0b 100%);
                         color: #0f172a !important;
                         text-decoration: none;
                         border-radius: 8px;
@@ -85,17 +235,17 @@ public class EmailTemplateService {
                     .button:hover {
                         transform: translateY(-3px);
                         box-shadow: 0 12px 28px rgba(217,119,6,0.35);
-                        background: linear-gradient(135deg, #f59e0b 0%%, var(--amber) 100%%);
+                        background: linear-gradient(135deg, #f59e0b 0%, var(--amber) 100%);
                     }
                     .info-box {
-                        background: linear-gradient(135deg, rgba(217,119,6,0.08) 0%%, rgba(217,119,6,0.04) 100%%);
+                        background: linear-gradient(135deg, rgba(217,119,6,0.08) 0%, rgba(217,119,6,0.04) 100%);
                         border-left: 4px solid var(--amber);
                         padding: 14px 18px;
                         margin: 18px 0;
                         border-radius: 6px;
                     }
                     .footer {
-                        background: linear-gradient(90deg, var(--navy) 0%%, #1a2438 50%%, rgba(217,119,6,0.1) 100%%);
+                        background: linear-gradient(90deg, var(--navy) 0%, #1a2438 50%, rgba(217,119,6,0.1) 100%);
                         color: #ffffff;
                         padding: 22px 30px;
                         text-align: center;
@@ -124,7 +274,7 @@ public class EmailTemplateService {
                         <h1>JustiConsulta</h1>
                     </div>
                     <div class="content">
-                        %s
+                        {{content}}
                     </div>
                     <div class="footer">
                         <p><strong>JustiConsulta</strong></p>
@@ -136,20 +286,15 @@ public class EmailTemplateService {
                 </div>
             </body>
             </html>
-            """.formatted(title, content);
-    }
+            """;
 
-    /**
-     * Plantilla de bienvenida para nuevos usuarios
-     */
-    public String getWelcomeEmailTemplate(String userName, String userEmail) {
-        String content = """
+    private static final String WELCOME = """
             <h2>¡Bienvenido a JustiConsulta! 🎉</h2>
-            <p>Hola <span class="highlight">%s</span>,</p>
+            <p>Hola <span class="highlight">{{userName}}</span>,</p>
             <p>Nos complace darte la bienvenida a <strong>JustiConsulta</strong>, tu plataforma confiable para consultar y realizar seguimiento de procesos judiciales en Colombia.</p>
             
             <div class="info-box">
-                <p style="margin: 0;"><strong>📧 Tu cuenta:</strong> %s</p>
+                <p style="margin: 0;"><strong>📧 Tu cuenta:</strong> {{userEmail}}</p>
             </div>
             
             <p>Con JustiConsulta podrás:</p>
@@ -170,52 +315,37 @@ public class EmailTemplateService {
                 Si tienes alguna pregunta o necesitas ayuda, no dudes en contactarnos. 
                 Estamos aquí para ayudarte.
             </p>
-            """.formatted(userName, userEmail);
+            """;
 
-        return getBaseTemplate(content, "Bienvenido a JustiConsulta");
-    }
-
-    /**
-     * Plantilla de notificación de nueva actuación procesal
-     */
-    public String getNewActuationEmailTemplate(String userName, String numeroRadicacion,
-                                                String actuacion, String fecha) {
-        String content = """
+    private static final String NEW_ACTUATION = """
             <h2>Nueva Actuación Procesal 📋</h2>
-            <p>Hola <span class="highlight">%s</span>,</p>
+            <p>Hola <span class="highlight">{{userName}}</span>,</p>
             <p>Te notificamos que se ha registrado una nueva actuación en uno de los procesos que estás siguiendo.</p>
             
             <div class="info-box">
-                <p style="margin: 5px 0;"><strong>Número de Radicación:</strong> %s</p>
-                <p style="margin: 5px 0;"><strong>Fecha:</strong> %s</p>
+                <p style="margin: 5px 0;"><strong>Número de Radicación:</strong> {{numeroRadicacion}}</p>
+                <p style="margin: 5px 0;"><strong>Fecha:</strong> {{fecha}}</p>
                 <p style="margin: 5px 0;"><strong>Actuación:</strong></p>
-                <p style="margin: 5px 0; font-size: 14px;">%s</p>
+                <p style="margin: 5px 0; font-size: 14px;">{{actuacion}}</p>
             </div>
             
             <div style="text-align: center;">
-                <a href="${APP_URL}/legal-processes/%s" class="button">Ver Detalles del Proceso</a>
+                <a href="${APP_URL}/legal-processes/{{numeroRadicacion}}" class="button">Ver Detalles del Proceso</a>
             </div>
             
             <p style="font-size: 14px; color: var(--muted); margin-top: 30px;">
                 💡 <em>Consejo:</em> Mantente al tanto de todas las actuaciones de tus procesos 
                 ingresando regularmente a la plataforma.
             </p>
-            """.formatted(userName, numeroRadicacion, fecha, actuacion, numeroRadicacion);
-
-        return getBaseTemplate(content, "Nueva Actuación Procesal");
-    }
+            """;
 
-    /**
-     * Plantilla de recordatorio de actuaciones pendientes
-     */
-    public String getActuationReminderEmailTemplate(String userName, int cantidadProcesos) {
-        String content = """
+    private static final String ACTUATION_REMINDER = """
             <h2>Recordatorio de Actuaciones ⏰</h2>
-            <p>Hola <span class="highlight">%s</span>,</p>
+            <p>Hola <span class="highlight">{{userName}}</span>,</p>
             <p>Este es un recordatorio para que revises el estado de tus procesos judiciales.</p>
             
             <div class="info-box">
-                <p style="margin: 0;">Actualmente tienes <strong class="highlight">%d proceso(s)</strong> en seguimiento.</p>
+                <p style="margin: 0;">Actualmente tienes <strong class="highlight">{{cantidadProcesos}} proceso(s)</strong> en seguimiento.</p>
             </div>
             
             <p>Te recomendamos revisar regularmente el estado de tus procesos para estar al tanto de cualquier novedad.</p>
@@ -228,18 +358,11 @@ public class EmailTemplateService {
                 📌 Este es un mensaje automático de recordatorio. Puedes configurar la frecuencia 
                 de estos recordatorios en tu perfil.
             </p>
-            """.formatted(userName, cantidadProcesos);
-
-        return getBaseTemplate(content, "Recordatorio de Actuaciones");
-    }
+            """;
 
-    /**
-     * Plantilla de recuperación de contraseña
-     */
-    public String getPasswordResetEmailTemplate(String userName, String resetLink) {
-        String content = """
+    private static final String PASSWORD_RESET = """
             <h2>Recuperación de Contraseña 🔐</h2>
-            <p>Hola <span class="highlight">%s</span>,</p>
+            <p>Hola <span class="highlight">{{userName}}</span>,</p>
             <p>Hemos recibido una solicitud para restablecer tu contraseña en JustiConsulta.</p>
             
             <div class="info-box">
@@ -251,7 +374,7 @@ public class EmailTemplateService {
             <p>Para restablecer tu contraseña, haz clic en el siguiente botón:</p>
             
             <div style="text-align: center;">
-                <a href="%s" class="button">Restablecer Contraseña</a>
+                <a href="{{resetLink}}" class="button">Restablecer Contraseña</a>
             </div>
             
             <p style="font-size: 14px; color: var(--muted); margin-top: 30px;">
@@ -260,24 +383,17 @@ public class EmailTemplateService {
             
             <p style="font-size: 13px; color: #9ca3af; margin-top: 20px;">
                 Si el botón no funciona, copia y pega el siguiente enlace en tu navegador:<br>
-                <a href="%s" style="color: var(--amber); word-break: break-all;">%s</a>
+                <a href="{{resetLink}}" style="color: var(--amber); word-break: break-all;">{{resetLink}}</a>
             </p>
-            """.formatted(userName, resetLink, resetLink, resetLink);
-
-        return getBaseTemplate(content, "Recuperación de Contraseña");
-    }
+            """;
 
-    /**
-     * Plantilla de confirmación de eliminación de proceso
-     */
-    public String getProcessDeletedEmailTemplate(String userName, String numeroRadicacion) {
-        String content = """
+    private static final String PROCESS_DELETED = """
             <h2>Proceso Eliminado del Seguimiento ✓</h2>
-            <p>Hola <span class="highlight">%s</span>,</p>
+            <p>Hola <span class="highlight">{{userName}}</span>,</p>
             <p>Te confirmamos que el siguiente proceso ha sido eliminado de tu lista de seguimiento:</p>
             
             <div class="info-box">
-                <p style="margin: 0;"><strong>Número de Radicación:</strong> %s</p>
+                <p style="margin: 0;"><strong>Número de Radicación:</strong> {{numeroRadicacion}}</p>
             </div>
             
             <p>Ya no recibirás notificaciones sobre actuaciones de este proceso.</p>
@@ -290,21 +406,14 @@ public class EmailTemplateService {
                 Si eliminaste este proceso por error, puedes volver a agregarlo en cualquier momento 
                 realizando una nueva búsqueda.
             </p>
-            """.formatted(userName, numeroRadicacion);
-
-        return getBaseTemplate(content, "Proceso Eliminado del Seguimiento");
-    }
+            """;
 
-    /**
-     * Plantilla de notificación de múltiples actuaciones
-     */
-    public String getMultipleActuationsEmailTemplate(String userName, String actuacionesHtml) {
-        String content = """
+    private static final String MULTIPLE_ACTUATIONS = """
             <h2>Resumen de Actuaciones Recientes 📊</h2>
-            <p>Hola <span class="highlight">%s</span>,</p>
+            <p>Hola <span class="highlight">{{userName}}</span>,</p>
             <p>Te enviamos un resumen de las actuaciones recientes en tus procesos:</p>
             
-            %s
+            {{actuacionesHtml}}
             
             <div style="text-align: center;">
                 <a href="${APP_URL}/my-processes" class="button">Ver Todos Mis Procesos</a>
@@ -313,23 +422,16 @@ public class EmailTemplateService {
             <p style="font-size: 14px; color: var(--muted); margin-top: 30px;">
                 💼 Mantente informado sobre el estado de tus procesos judiciales.
             </p>
-            """.formatted(userName, actuacionesHtml);
-
-        return getBaseTemplate(content, "Resumen de Actuaciones");
-    }
+            """;
 
-    /**
-     * Plantilla de notificación de proceso asociado exitosamente
-     */
-    public String getProcessAssociatedEmailTemplate(String userName, String numeroRadicacion, String despacho) {
-        String content = """
+    private static final String PROCESS_ASSOCIATED = """
             <h2>Proceso Agregado a tu Seguimiento ✅</h2>
-            <p>Hola <span class="highlight">%s</span>,</p>
+            <p>Hola <span class="highlight">{{userName}}</span>,</p>
             <p>Has agregado exitosamente un nuevo proceso judicial a tu lista de seguimiento en JustiConsulta.</p>
             
             <div class="info-box">
-                <p style="margin: 5px 0;"><strong>Número de Radicación:</strong> %s</p>
-                <p style="margin: 5px 0;"><strong>Despacho:</strong> %s</p>
+                <p style="margin: 5px 0;"><strong>Número de Radicación:</strong> {{numeroRadicacion}}</p>
+                <p style="margin: 5px 0;"><strong>Despacho:</strong> {{despacho}}</p>
             </div>
             
             <p>A partir de ahora recibirás notificaciones cada vez que haya una nueva actuación en este proceso.</p>
@@ -343,7 +445,7 @@ public class EmailTemplateService {
             </ul>
             
             <div style="text-align: center;">
-                <a href="${APP_URL}/legal-processes/%s" class="button">Ver Detalle del Proceso</a>
+                <a href="${APP_URL}/legal-processes/{{numeroRadicacion}}" class="button">Ver Detalle del Proceso</a>
             </div>
             
             <div class="divider"></div>
@@ -351,8 +453,5 @@ public class EmailTemplateService {
             <p style="font-size: 14px; color: var(--muted);">
                 💡 <em>Tip:</em> Puedes gestionar todos tus procesos en seguimiento desde tu panel de control.
             </p>
-            """.formatted(userName, numeroRadicacion, despacho != null ? despacho : "No disponible", numeroRadicacion);
-
-        return getBaseTemplate(content, "Proceso Agregado a tu Seguimiento");
-    }
+            """;
 }
@@ -0,0 +1,114 @@
+package com.justiconsulta.store.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.justiconsulta.store.model.HistoryPayload;
+import com.justiconsulta.store.repository.HistoryPayloadRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Almacén direccionado por contenido de los cuerpos del historial (tabla history_payload).
+ * El mismo cuerpo del proceso, consultado por muchos usuarios o muchas veces, se guarda una sola vez
+ * comprimido; History solo guarda su hash. La escritura la hace {@link HistoryWriter}; aquí se prepara
+ * (normalización, hash, gzip) y se lee bajo demanda.
+ */
+@Component
+public class HistoryPayloadStore {
+    private static final Logger log = LoggerFactory.getLogger(HistoryPayloadStore.class);
+
+    private final HistoryPayloadRepository payloadRepository;
+    private final ObjectMapper objectMapper;
+
+    public HistoryPayloadStore(HistoryPayloadRepository payloadRepository, ObjectMapper objectMapper) {
+        this.payloadRepository = payloadRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public record Prepared(String hash, byte[] content, int originalLength) {
+    }
+
+    /**
+     * Normaliza el cuerpo (JSON re-serializado sin espacios; texto plano recortado), calcula su hash
+     * y lo comprime. Dos respuestas que solo difieren en formato comparten el mismo hash.
+     */
+    public Prepared prepare(String body) {
+        String normalized = normalize(body);
+        byte[] bytes = normalized.getBytes(StandardCharsets.UTF_8);
+        return new Prepared(sha256(bytes), gzip(bytes), normalized.length());
+    }
+
+    public Optional<String> load(String hash) {
+        if (hash == null) return Optional.empty();
+        return payloadRepository.findById(hash).map(p -> gunzip(p.getContent()));
+    }
+
+    // One query for all distinct hashes; each body is decompressed once even if many rows share it
+    public Map<String, String> loadAll(Collection<String> hashes) {
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String h : hashes) {
+            if (h != null) distinct.add(h);
+        }
+        Map<String, String> result = new HashMap<>(distinct.size() * 2);
+        if (distinct.isEmpty()) return result;
+        for (HistoryPayload payload : payloadRepository.findAllById(distinct)) {
+            result.put(payload.getHash(), gunzip(payload.getContent()));
+        }
+        return result;
+    }
+
+    private String normalize(String body) {
+        String trimmed = body.trim();
+        if (trimmed.startsWith("{") || trimmed.startsWith("[")) {
+            try {
+                return objectMapper.writeValueAsString(objectMapper.readTree(trimmed));
+            } catch (IOException e) {
+                log.debug("Cuerpo no es JSON válido, se guarda tal cual: {}", e.getMessage());
+            }
+        }
+        return trimmed;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, bytes.length / 4));
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String gunzip(byte[] compressed) {
+        try (GZIPInputStream gz = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(gz.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
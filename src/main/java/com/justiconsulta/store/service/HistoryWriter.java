@@ -0,0 +1,227 @@
+package com.justiconsulta.store.service;
+
+import com.justiconsulta.store.model.History;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escritura asíncrona del historial de consultas. Las peticiones solo encolan el registro; un hilo
+ * dedicado vacía la cola en INSERT multi-fila cuando se junta {@code flush-size} registros o pasa
+ * {@code flush-interval-ms} desde el primero. Si la cola está llena el registro se descarta (y se
+ * cuenta) en lugar de frenar la petición. Al apagar la aplicación se escribe lo pendiente.
+ * El cuerpo de cada registro se guarda deduplicado en history_payload (ver {@link HistoryPayloadStore}).
+ */
+@Component
+public class HistoryWriter {
+    private static final Logger log = LoggerFactory.getLogger(HistoryWriter.class);
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO history (id, legal_process_id, activity_series_id, date, result, result_hash, created_at, user_document_number) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int COLUMNS = 8;
+    private static final String PAYLOAD_INSERT_PREFIX =
+            "INSERT INTO history_payload (hash, content, original_length, created_at) VALUES ";
+    private static final String PAYLOAD_ROW_PLACEHOLDERS = "(?, ?, ?, ?)";
+    private static final String PAYLOAD_CONFLICT = " ON CONFLICT (hash) DO NOTHING";
+    private static final int PAYLOAD_COLUMNS = 4;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HistoryPayloadStore payloadStore;
+    private final BlockingQueue<History> queue;
+    private final int flushSize;
+    private final long flushIntervalNanos;
+    private final long shutdownTimeoutMillis;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    private final Counter enqueued;
+    private final Counter dropped;
+    private final Counter written;
+    private final Counter failed;
+    private final Timer batchTimer;
+
+    public HistoryWriter(JdbcTemplate jdbcTemplate,
+                         HistoryPayloadStore payloadStore,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.history.queue-capacity:10000}") int queueCapacity,
+                         @Value("${app.history.flush-size:200}") int flushSize,
+                         @Value("${app.history.flush-interval-ms:1000}") long flushIntervalMillis,
+                         @Value("${app.history.shutdown-timeout-ms:10000}") long shutdownTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.payloadStore = payloadStore;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        // PostgreSQL accepts at most 65535 bind parameters per statement
+        this.flushSize = Math.max(1, Math.min(flushSize, 65535 / COLUMNS));
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.worker = new Thread(this::run, "history-writer");
+        this.worker.setDaemon(true);
+
+        this.enqueued = Counter.builder("history.writer.enqueued").register(meterRegistry);
+        this.dropped = Counter.builder("history.writer.dropped").register(meterRegistry);
+        this.written = Counter.builder("history.writer.written").register(meterRegistry);
+        this.failed = Counter.builder("history.writer.failed").register(meterRegistry);
+        this.batchTimer = Timer.builder("history.writer.batch").register(meterRegistry);
+        Gauge.builder("history.writer.queue", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        worker.start();
+    }
+
+    /**
+     * Encola el registro sin bloquear. Devuelve false si la cola está llena y el registro se descartó.
+     */
+    public boolean enqueue(History history) {
+        if (!running || !queue.offer(history)) {
+            dropped.increment();
+            log.debug("Cola de historial llena, se descarta el registro de {}", history.getUserDocumentNumber());
+            return false;
+        }
+        enqueued.increment();
+        return true;
+    }
+
+    private void run() {
+        List<History> batch = new ArrayList<>(flushSize);
+        while (running) {
+            try {
+                History first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                fillBatch(batch);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Error inesperado en el escritor de historial: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+        drainRemaining(batch);
+    }
+
+    // Waits for more rows until the batch is full or the interval since the first row has passed
+    private void fillBatch(List<History> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < flushSize) {
+            queue.drainTo(batch, flushSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= flushSize || remaining <= 0 || !running) return;
+            History next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) return;
+            batch.add(next);
+        }
+    }
+
+    private void drainRemaining(List<History> batch) {
+        batch.clear();
+        while (queue.drainTo(batch, flushSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<History> batch) {
+        if (batch.isEmpty()) return;
+        long start = System.nanoTime();
+        try {
+            writePayloads(batch);
+            writeRows(batch);
+            written.increment(batch.size());
+        } catch (Exception e) {
+            failed.increment(batch.size());
+            log.warn("No se pudieron guardar {} registros de historial: {}", batch.size(), e.getMessage());
+        } finally {
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Moves each result into history_payload (once per distinct body) and leaves only its hash on the row
+    private void writePayloads(List<History> batch) {
+        Map<String, HistoryPayloadStore.Prepared> distinct = new LinkedHashMap<>();
+        for (History h : batch) {
+            if (h.getResult() == null || h.getResultHash() != null) continue;
+            HistoryPayloadStore.Prepared prepared = payloadStore.prepare(h.getResult());
+            distinct.putIfAbsent(prepared.hash(), prepared);
+            h.setResultHash(prepared.hash());
+            h.setResult(null);
+        }
+        if (distinct.isEmpty()) return;
+
+        StringBuilder sql = new StringBuilder(PAYLOAD_INSERT_PREFIX);
+        Object[] args = new Object[distinct.size() * PAYLOAD_COLUMNS];
+        OffsetDateTime now = OffsetDateTime.now();
+        int i = 0;
+        for (HistoryPayloadStore.Prepared p : distinct.values()) {
+            if (i > 0) sql.append(", ");
+            sql.append(PAYLOAD_ROW_PLACEHOLDERS);
+            args[i++] = p.hash();
+            args[i++] = p.content();
+            args[i++] = p.originalLength();
+            args[i++] = now;
+        }
+        sql.append(PAYLOAD_CONFLICT);
+        jdbcTemplate.update(sql.toString(), args);
+    }
+
+    private void writeRows(List<History> batch) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + batch.size() * (ROW_PLACEHOLDERS.length() + 2))
+                .append(INSERT_PREFIX);
+        Object[] args = new Object[batch.size() * COLUMNS];
+        int i = 0;
+        for (History h : batch) {
+            if (i > 0) sql.append(", ");
+            sql.append(ROW_PLACEHOLDERS);
+            args[i++] = h.getId() != null ? h.getId() : UUID.randomUUID();
+            args[i++] = h.getLegalProcessId();
+            args[i++] = h.getActivitySeriesId();
+            args[i++] = h.getDate();
+            args[i++] = h.getResult();
+            args[i++] = h.getResultHash();
+            args[i++] = h.getCreatedAt();
+            args[i++] = h.getUserDocumentNumber();
+        }
+        jdbcTemplate.update(sql.toString(), args);
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            // The worker notices the flag within one poll interval, then writes what is left
+            worker.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            log.warn("El escritor de historial no terminó a tiempo; {} registros pendientes", queue.size());
+        }
+    }
+}
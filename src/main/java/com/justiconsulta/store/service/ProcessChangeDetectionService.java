@@ -0,0 +1,249 @@
+package com.justiconsulta.store.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.justiconsulta.store.model.LegalProcess;
+import com.justiconsulta.store.repository.LegalProcessRepository;
+import com.justiconsulta.store.repository.UserLegalProcessRepository;
+import com.justiconsulta.store.service.ActuationService.DetectedActuacion;
+import com.justiconsulta.store.service.ActuationService.SubscriberUpdate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Detección periódica de nuevas actuaciones en los procesos seguidos por los usuarios.
+ * Recorre los radicados distintos de user_legal_processes (paginación por llave), consulta cada
+ * proceso una sola vez sin importar cuántos usuarios lo sigan y, si la fecha de última actuación
+ * es posterior a la registrada, guarda las nuevas Action y notifica a cada suscriptor.
+ * Las consultas usan la prioridad BACKGROUND de {@link CourtApiGuard}, con un presupuesto aparte del
+ * de las peticiones de usuarios.
+ */
+@Service
+public class ProcessChangeDetectionService {
+    private static final Logger log = LoggerFactory.getLogger(ProcessChangeDetectionService.class);
+    private static final DateTimeFormatter EMAIL_DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private final UserLegalProcessRepository userLegalProcessRepository;
+    private final LegalProcessRepository legalProcessRepository;
+    private final ApiClient apiClient;
+    private final ProcessIdResolver processIdResolver;
+    private final ActuationService actuationService;
+    private final EmailService emailService;
+    private final ObjectMapper objectMapper;
+    private final CourtPayloadExtractor payloadExtractor;
+
+    private final boolean enabled;
+    private final int pageSize;
+    private final Semaphore permits;
+    private final ExecutorService executor;
+
+    private final Timer runTimer;
+    private final Counter processesChecked;
+    private final Counter processesChanged;
+    private final Counter actuacionesDetected;
+    private final Counter notificationsSent;
+    private final Counter failures;
+
+    public ProcessChangeDetectionService(UserLegalProcessRepository userLegalProcessRepository,
+                                         LegalProcessRepository legalProcessRepository,
+                                         ApiClient apiClient,
+                                         ProcessIdResolver processIdResolver,
+                                         ActuationService actuationService,
+                                         EmailService emailService,
+                                         ObjectMapper objectMapper,
+                                         CourtPayloadExtractor payloadExtractor,
+                                         MeterRegistry meterRegistry,
+                                         Environment environment,
+                                         @Value("${app.change-detection.enabled:true}") boolean enabled,
+                                         @Value("${app.change-detection.page-size:500}") int pageSize,
+                                         @Value("${app.change-detection.concurrency:8}") int concurrency) {
+        this.userLegalProcessRepository = userLegalProcessRepository;
+        this.legalProcessRepository = legalProcessRepository;
+        this.apiClient = apiClient;
+        this.processIdResolver = processIdResolver;
+        this.actuationService = actuationService;
+        this.emailService = emailService;
+        this.objectMapper = objectMapper;
+        this.payloadExtractor = payloadExtractor;
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+        this.permits = new Semaphore(concurrency);
+        this.executor = Threading.VIRTUAL.isActive(environment)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(concurrency, new CustomizableThreadFactory("change-detection-"));
+
+        this.runTimer = Timer.builder("court.changes.run").register(meterRegistry);
+        this.processesChecked = Counter.builder("court.changes.processes.checked").register(meterRegistry);
+        this.processesChanged = Counter.builder("court.changes.processes.changed").register(meterRegistry);
+        this.actuacionesDetected = Counter.builder("court.changes.actuaciones.detected").register(meterRegistry);
+        this.notificationsSent = Counter.builder("court.changes.notifications").register(meterRegistry);
+        this.failures = Counter.builder("court.changes.failures").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.change-detection.interval-ms:1800000}",
+            initialDelayString = "${app.change-detection.initial-delay-ms:60000}")
+    public void detectChanges() {
+        if (!enabled) return;
+        log.info("Iniciando detección de nuevas actuaciones...");
+        long start = System.nanoTime();
+        AtomicInteger checked = new AtomicInteger();
+        AtomicInteger changed = new AtomicInteger();
+
+        try {
+            String after = "";
+            while (true) {
+                List<String> page = userLegalProcessRepository.findDistinctProcessIdsAfter(after, PageRequest.of(0, pageSize));
+                if (page.isEmpty()) break;
+
+                List<CompletableFuture<Void>> tasks = new ArrayList<>(page.size());
+                for (String numeroRadicacion : page) {
+                    tasks.add(CompletableFuture.runAsync(() -> {
+                        if (checkProcess(numeroRadicacion)) changed.incrementAndGet();
+                        checked.incrementAndGet();
+                    }, executor));
+                }
+                CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+
+                if (page.size() < pageSize) break;
+                after = page.get(page.size() - 1);
+            }
+        } catch (Exception e) {
+            log.error("Error en la detección de nuevas actuaciones: {}", e.getMessage(), e);
+        } finally {
+            long elapsedNanos = System.nanoTime() - start;
+            runTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            double seconds = Math.max(elapsedNanos / 1_000_000_000.0, 0.001);
+            log.info("Detección de actuaciones completada: {} procesos revisados, {} con novedades en {} ms ({} procesos/s)",
+                    checked.get(), changed.get(), elapsedNanos / 1_000_000, String.format("%.1f", checked.get() / seconds));
+        }
+    }
+
+    /**
+     * Revisa un proceso. Devuelve true si se registraron actuaciones nuevas.
+     */
+    boolean checkProcess(String numeroRadicacion) {
+        boolean acquired = false;
+        try {
+            permits.acquire();
+            acquired = true;
+            processesChecked.increment();
+
+            List<LegalProcess> subscribers = legalProcessRepository.findSubscribersByProcessId(numeroRadicacion);
+            if (subscribers.isEmpty()) return false;
+
+            Optional<OffsetDateTime> latestOpt = fetchLastActionDate(numeroRadicacion);
+            if (latestOpt.isEmpty()) return false;
+            OffsetDateTime latest = latestOpt.get();
+
+            boolean anyUninitialized = subscribers.stream().anyMatch(p -> p.getLastActionDate() == null);
+            Optional<OffsetDateTime> oldestBaseline = subscribers.stream()
+                    .map(LegalProcess::getLastActionDate)
+                    .filter(Objects::nonNull)
+                    .min(OffsetDateTime::compareTo);
+            boolean hasNews = oldestBaseline.isPresent() && latest.isAfter(oldestBaseline.get());
+            if (!hasNews && !anyUninitialized) return false;
+
+            List<DetectedActuacion> detected = hasNews
+                    ? fetchActuacionesAfter(numeroRadicacion, oldestBaseline.get())
+                    : List.of();
+            List<SubscriberUpdate> updates = actuationService.recordDetectedActuaciones(numeroRadicacion, detected, latest);
+            if (detected.isEmpty()) return false;
+
+            processesChanged.increment();
+            actuacionesDetected.increment(detected.size());
+            for (SubscriberUpdate update : updates) {
+                DetectedActuacion actuacion = update.latest();
+                emailService.sendNewActuationEmail(update.user(), numeroRadicacion, actuacion.description(),
+                        actuacion.date().format(EMAIL_DATE));
+                notificationsSent.increment();
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            failures.increment();
+            log.warn("No se pudo revisar el proceso {}: {}", numeroRadicacion, e.getMessage());
+            return false;
+        } finally {
+            if (acquired) permits.release();
+        }
+    }
+
+    private Optional<OffsetDateTime> fetchLastActionDate(String numeroRadicacion) {
+        ResponseEntity<String> response = requireSuccess(apiClient.getByNumeroRadicacion(numeroRadicacion, Map.of(), CourtApiGuard.Priority.BACKGROUND));
+        if (response.getBody() == null) {
+            return Optional.empty();
+        }
+        return payloadExtractor.extract(response.getBody(), CourtPayloadExtractor.FIRST_PROCESS_LAST_ACTION)
+                .flatMap(CourtDates::parse);
+    }
+
+    // Primera página de actuaciones (la API las ordena de la más reciente a la más antigua)
+    private List<DetectedActuacion> fetchActuacionesAfter(String numeroRadicacion, OffsetDateTime baseline) throws Exception {
+        Optional<String> idProceso = processIdResolver.resolve(numeroRadicacion);
+        if (idProceso.isEmpty()) return List.of();
+
+        // Si esta consulta fallara y se siguiera, la fecha base avanzaría y las actuaciones nuevas se perderían
+        ResponseEntity<String> response = requireSuccess(apiClient.getProcessActuaciones(idProceso.get(), 1, CourtApiGuard.Priority.BACKGROUND));
+        if (response.getBody() == null) {
+            return List.of();
+        }
+        List<DetectedActuacion> result = new ArrayList<>();
+        for (JsonNode node : objectMapper.readTree(response.getBody()).path("actuaciones")) {
+            Optional<OffsetDateTime> date = CourtDates.parse(node.path("fechaActuacion").asText(null));
+            if (date.isEmpty() || !date.get().isAfter(baseline)) continue;
+            String actuacion = node.path("actuacion").asText("");
+            String anotacion = node.path("anotacion").asText("");
+            String description = anotacion.isBlank() ? actuacion : actuacion + " - " + anotacion;
+            result.add(new DetectedActuacion(description, date.get()));
+        }
+        return result;
+    }
+
+    /**
+     * Un rechazo del guard (503 por circuito abierto o límite de ritmo) o cualquier otra respuesta no 2xx
+     * hace fallar la revisión del proceso, para que cuente en court.changes.failures en lugar de pasar
+     * como "sin novedades".
+     */
+    private static ResponseEntity<String> requireSuccess(ResponseEntity<String> response) {
+        if (response == null) {
+            throw new IllegalStateException("sin respuesta de la API externa");
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            throw new IllegalStateException("la API externa respondió HTTP " + response.getStatusCode().value());
+        }
+        return response;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,94 @@
+package com.justiconsulta.store.service;
+
+import com.justiconsulta.store.model.ProcessIdMapping;
+import com.justiconsulta.store.repository.ProcessIdMappingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resuelve el idProceso de la Rama Judicial a partir del número de radicación.
+ * Orden de búsqueda: memoria -> tabla legal_process_id_mapping -> API externa.
+ * Las resoluciones exitosas se guardan en la tabla y en memoria para no repetir la consulta.
+ */
+@Service
+public class ProcessIdResolver {
+    private static final Logger log = LoggerFactory.getLogger(ProcessIdResolver.class);
+
+    private final ProcessIdMappingRepository mappingRepository;
+    private final ApiClient apiClient;
+    private final int maxMemoryEntries;
+    // Clave empaquetada (dos long) en lugar del String de 23 caracteres
+    private final Map<Radicado, String> memory = new ConcurrentHashMap<>();
+
+    public ProcessIdResolver(ProcessIdMappingRepository mappingRepository, ApiClient apiClient,
+                             @Value("${api.external.process-id.memory-entries:50000}") int maxMemoryEntries) {
+        this.mappingRepository = mappingRepository;
+        this.apiClient = apiClient;
+        this.maxMemoryEntries = maxMemoryEntries;
+    }
+
+    public Optional<String> resolve(String numeroRadicacion) {
+        if (numeroRadicacion == null || numeroRadicacion.isBlank()) return Optional.empty();
+        String key = numeroRadicacion.trim();
+        // Solo los radicados válidos pueden tener idProceso (la API rechaza el resto sin consultar)
+        Optional<Radicado> parsed = Radicado.parse(key);
+        if (parsed.isEmpty()) return Optional.empty();
+        Radicado radicado = parsed.get();
+
+        String known = memory.get(radicado);
+        if (known != null) return Optional.of(known);
+
+        try {
+            Optional<ProcessIdMapping> stored = mappingRepository.findById(key);
+            if (stored.isPresent()) {
+                remember(radicado, stored.get().getIdProceso());
+                return Optional.of(stored.get().getIdProceso());
+            }
+        } catch (Exception e) {
+            log.warn("No se pudo leer el idProceso persistido para {}: {}", key, e.getMessage());
+        }
+
+        Optional<String> fromApi = apiClient.getProcessIdByNumeroRadicacion(key);
+        fromApi.filter(id -> !id.isBlank()).ifPresent(id -> {
+            persist(key, id);
+            remember(radicado, id);
+        });
+        return fromApi;
+    }
+
+    /**
+     * Registra un idProceso ya leído de la API por otro flujo (p. ej. al asociar un proceso), para que
+     * la detección de cambios no tenga que volver a consultarlo.
+     */
+    public void prime(String numeroRadicacion, String idProceso) {
+        if (numeroRadicacion == null || idProceso == null || idProceso.isBlank()) return;
+        String key = numeroRadicacion.trim();
+        Optional<Radicado> parsed = Radicado.parse(key);
+        if (parsed.isEmpty() || idProceso.equals(memory.get(parsed.get()))) return;
+        persist(key, idProceso);
+        remember(parsed.get(), idProceso);
+    }
+
+    private void persist(String numeroRadicacion, String idProceso) {
+        try {
+            mappingRepository.save(new ProcessIdMapping(numeroRadicacion, idProceso, OffsetDateTime.now()));
+        } catch (Exception e) {
+            // Otro hilo pudo haber insertado la misma relación; el valor es el mismo, así que se ignora
+            log.debug("No se pudo persistir idProceso {} para {}: {}", idProceso, numeroRadicacion, e.getMessage());
+        }
+    }
+
+    private void remember(Radicado radicado, String idProceso) {
+        if (memory.size() >= maxMemoryEntries) {
+            memory.clear();
+        }
+        memory.put(radicado, idProceso);
+    }
+}
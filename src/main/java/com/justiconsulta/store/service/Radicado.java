@@ -0,0 +1,104 @@
+package com.justiconsulta.store.service;
+
+import java.util.Optional;
+
+/**
+ * Número de radicación de la Rama Judicial: exactamente 23 dígitos ASCII.
+ * La validación es una comprobación de longitud más un recorrido de caracteres (sin regex ni objetos
+ * intermedios). El valor se guarda empaquetado en dos long (5 + 18 dígitos), así que sirve como clave
+ * compacta de mapas y caches en lugar del String de 23 caracteres.
+ */
+public final class Radicado {
+    public static final int LENGTH = 23;
+
+    private static final int LOW_DIGITS = 18;
+    private static final int HIGH_DIGITS = LENGTH - LOW_DIGITS;
+
+    // Primeros 5 dígitos (< 10^5) y últimos 18 (< 10^18 < Long.MAX_VALUE)
+    private final long high;
+    private final long low;
+
+    private Radicado(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    public static boolean isValid(CharSequence value) {
+        return value != null && value.length() == LENGTH && allDigits(value);
+    }
+
+    // Equivalente a matches("\\d+"): al menos un dígito y solo dígitos ASCII
+    public static boolean isDigits(CharSequence value) {
+        return value != null && !value.isEmpty() && allDigits(value);
+    }
+
+    // Equivalente a matches("\\d{min,max}")
+    public static boolean isDigits(CharSequence value, int minLength, int maxLength) {
+        if (value == null) return false;
+        int length = value.length();
+        return length >= minLength && length <= maxLength && allDigits(value);
+    }
+
+    public static Optional<Radicado> parse(CharSequence value) {
+        if (!isValid(value)) return Optional.empty();
+        return Optional.of(new Radicado(digits(value, 0, HIGH_DIGITS), digits(value, HIGH_DIGITS, LENGTH)));
+    }
+
+    public static Radicado of(long high, long low) {
+        if (high < 0 || high >= 100_000L || low < 0 || low >= 1_000_000_000_000_000_000L) {
+            throw new IllegalArgumentException("Radicado fuera de rango: " + high + "/" + low);
+        }
+        return new Radicado(high, low);
+    }
+
+    public long high() {
+        return high;
+    }
+
+    public long low() {
+        return low;
+    }
+
+    private static boolean allDigits(CharSequence value) {
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    private static long digits(CharSequence value, int from, int to) {
+        long result = 0;
+        for (int i = from; i < to; i++) {
+            result = result * 10 + (value.charAt(i) - '0');
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Radicado other && high == other.high && low == other.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(high * 31 + low);
+    }
+
+    // Reconstruye los 23 dígitos, incluidos los ceros a la izquierda
+    @Override
+    public String toString() {
+        char[] chars = new char[LENGTH];
+        long h = high;
+        long l = low;
+        for (int i = LENGTH - 1; i >= HIGH_DIGITS; i--) {
+            chars[i] = (char) ('0' + l % 10);
+            l /= 10;
+        }
+        for (int i = HIGH_DIGITS - 1; i >= 0; i--) {
+            chars[i] = (char) ('0' + h % 10);
+            h /= 10;
+        }
+        return new String(chars);
+    }
+}
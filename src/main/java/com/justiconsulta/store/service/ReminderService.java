@@ -2,132 +2,262 @@ package com.justiconsulta.store.service;
 
 import com.justiconsulta.store.model.ReminderConfiguration;
 import com.justiconsulta.store.model.User;
-import com.justiconsulta.store.model.UserLegalProcess;
 import com.justiconsulta.store.repository.ReminderConfigurationRepository;
 import com.justiconsulta.store.repository.UserLegalProcessRepository;
 import com.justiconsulta.store.service.contract.IReminderService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Servicio para gestionar recordatorios automáticos de procesos
+ * Servicio para gestionar recordatorios automáticos de procesos.
+ * Cada configuración guarda su próximo envío en next_due_at; el programador corre cada minuto y solo
+ * lee las configuraciones vencidas (índice idx_reminder_config_due), en páginas que se despachan en
+ * paralelo (como mucho {@code app.reminders.concurrency} a la vez). Tras cada envío se calcula el
+ * siguiente a partir de la hora, el minuto y la frecuencia.
  */
 @Service
 @EnableScheduling
 public class ReminderService implements IReminderService {
     private static final Logger log = LoggerFactory.getLogger(ReminderService.class);
+    private static final ZoneId ZONE = ZoneId.of("America/Bogota"); // Zona horaria de Colombia
 
     private final ReminderConfigurationRepository reminderConfigRepository;
     private final UserLegalProcessRepository userLegalProcessRepository;
     private final EmailService emailService;
 
+    private final int pageSize;
+    private final Duration maxLateness;
+    private final Duration retryDelay;
+    // Bounds DB work per page in both modes; virtual threads alone would start a whole page at once
+    private final Semaphore permits;
+    private final ExecutorService executor;
+    private final AtomicBoolean backfilled = new AtomicBoolean();
+
+    private final Timer runTimer;
+    private final Timer pageTimer;
+    private final Counter sent;
+    private final Counter skipped;
+    private final Counter missed;
+    private final Counter failed;
+
+    private enum Outcome { SENT, SKIPPED, MISSED, FAILED }
+
     public ReminderService(ReminderConfigurationRepository reminderConfigRepository,
                            UserLegalProcessRepository userLegalProcessRepository,
-                           EmailService emailService) {
+                           EmailService emailService,
+                           MeterRegistry meterRegistry,
+                           Environment environment,
+                           @Value("${app.reminders.page-size:200}") int pageSize,
+                           @Value("${app.reminders.concurrency:4}") int concurrency,
+                           @Value("${app.reminders.max-lateness-minutes:60}") long maxLatenessMinutes,
+                           @Value("${app.reminders.retry-minutes:15}") long retryMinutes) {
         this.reminderConfigRepository = reminderConfigRepository;
         this.userLegalProcessRepository = userLegalProcessRepository;
         this.emailService = emailService;
+        this.pageSize = pageSize;
+        this.maxLateness = Duration.ofMinutes(maxLatenessMinutes);
+        this.retryDelay = Duration.ofMinutes(retryMinutes);
+        this.permits = new Semaphore(concurrency);
+        this.executor = Threading.VIRTUAL.isActive(environment)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(concurrency, new CustomizableThreadFactory("reminders-"));
+
+        this.runTimer = Timer.builder("reminders.run").register(meterRegistry);
+        this.pageTimer = Timer.builder("reminders.page").register(meterRegistry);
+        this.sent = Counter.builder("reminders.dispatched").tag("outcome", "sent").register(meterRegistry);
+        this.skipped = Counter.builder("reminders.dispatched").tag("outcome", "skipped").register(meterRegistry);
+        this.missed = Counter.builder("reminders.dispatched").tag("outcome", "missed").register(meterRegistry);
+        this.failed = Counter.builder("reminders.dispatched").tag("outcome", "failed").register(meterRegistry);
     }
 
     /**
-     * Tarea programada que se ejecuta cada hora para verificar y enviar recordatorios
-     * Se ejecuta cada hora en el minuto 0
+     * Tarea programada que se ejecuta cada minuto y envía los recordatorios vencidos
      */
-    @Scheduled(cron = "0 0 * * * *") // Cada hora en el minuto 0
+    @Scheduled(cron = "${app.reminders.cron:0 * * * * *}", zone = "America/Bogota")
     public void processReminders() {
-        log.info("Iniciando proceso de recordatorios automáticos...");
-
+        long start = System.nanoTime();
+        AtomicInteger dispatched = new AtomicInteger();
         try {
-            // Obtener todas las configuraciones de recordatorios habilitadas
-            List<ReminderConfiguration> enabledConfigs = reminderConfigRepository.findByEnabledTrue();
-
-            ZonedDateTime now = ZonedDateTime.now(ZoneId.of("America/Bogota")); // Zona horaria de Colombia
-            int currentHour = now.getHour();
-            int currentMinute = now.getMinute();
-
-            for (ReminderConfiguration config : enabledConfigs) {
-                // Verificar si la hora actual coincide con la hora de recordatorio configurada
-                if (shouldSendReminder(config, currentHour, currentMinute, now)) {
-                    sendReminderToUser(config);
-                }
-            }
+            if (backfilled.compareAndSet(false, true)) backfillNextDueAt();
 
-            log.info("Proceso de recordatorios completado exitosamente");
+            ZonedDateTime now = ZonedDateTime.now(ZONE);
+            while (true) {
+                List<ReminderConfiguration> due = reminderConfigRepository.findDueWithUser(now.toOffsetDateTime(),
+                        PageRequest.of(0, pageSize));
+                if (due.isEmpty()) break;
+
+                int progressed = dispatchPage(due, now);
+                dispatched.addAndGet(due.size());
+                // Every dispatched row moves past "now"; if none did, the next page would be the same one
+                if (progressed == 0 || due.size() < pageSize) break;
+            }
         } catch (Exception e) {
             log.error("Error en el proceso de recordatorios automáticos: {}", e.getMessage(), e);
+        } finally {
+            long elapsedNanos = System.nanoTime() - start;
+            runTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            if (dispatched.get() > 0) {
+                log.info("Recordatorios procesados: {} configuraciones en {} ms", dispatched.get(), elapsedNanos / 1_000_000);
+            }
         }
     }
 
     /**
-     * Determina si se debe enviar un recordatorio basado en la configuración
+     * Despacha una página de configuraciones vencidas en paralelo. Los conteos de procesos de todos
+     * los usuarios de la página salen de una sola consulta. Devuelve cuántas filas se reprogramaron.
      */
-    private boolean shouldSendReminder(ReminderConfiguration config, int currentHour,
-                                      int currentMinute, ZonedDateTime now) {
-        // Verificar si está dentro del rango horario permitido
-        if (currentHour < config.getStartHour() || currentHour >= config.getEndHour()) {
-            return false;
+    private int dispatchPage(List<ReminderConfiguration> due, ZonedDateTime now) {
+        long start = System.nanoTime();
+        List<String> documentNumbers = new ArrayList<>(due.size());
+        for (ReminderConfiguration config : due) {
+            documentNumbers.add(config.getUser().getDocumentNumber());
         }
-
-        // Verificar si es la hora configurada
-        if (currentHour != config.getReminderHour() || currentMinute != config.getReminderMinute()) {
-            return false;
+        Map<String, Long> processCounts = new HashMap<>(due.size() * 2);
+        for (Object[] row : userLegalProcessRepository.countByUserDocumentNumbers(documentNumbers)) {
+            processCounts.put((String) row[0], (Long) row[1]);
         }
 
-        // Verificar si ya se envió un recordatorio hoy
-        OffsetDateTime lastSent = config.getLastReminderSent();
-        if (lastSent != null) {
-            ZonedDateTime lastSentZoned = lastSent.atZoneSameInstant(ZoneId.of("America/Bogota"));
-            ZonedDateTime startOfToday = now.toLocalDate().atStartOfDay(ZoneId.of("America/Bogota"));
-
-            if (lastSentZoned.isAfter(startOfToday)) {
-                return false; // Ya fue enviado hoy
-            }
+        List<CompletableFuture<Outcome>> tasks = new ArrayList<>(due.size());
+        for (ReminderConfiguration config : due) {
+            long count = processCounts.getOrDefault(config.getUser().getDocumentNumber(), 0L);
+            tasks.add(CompletableFuture.supplyAsync(() -> dispatchBounded(config, count, now), executor));
         }
-
-        // Verificar la frecuencia (en días)
-        if (lastSent != null) {
-            OffsetDateTime nextReminderDate = lastSent.plusDays(config.getFrequencyDays());
-            return !OffsetDateTime.now().isBefore(nextReminderDate);
+        int progressed = 0;
+        for (CompletableFuture<Outcome> task : tasks) {
+            if (task.join() != null) progressed++;
         }
+        pageTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return progressed;
+    }
 
-        return true;
+    // At most app.reminders.concurrency dispatches hold a DB connection at the same time
+    private Outcome dispatchBounded(ReminderConfiguration config, long processCount, ZonedDateTime now) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        try {
+            return dispatch(config, processCount, now);
+        } finally {
+            permits.release();
+        }
     }
 
     /**
-     * Envía el recordatorio a un usuario específico
+     * Envía (o descarta) el recordatorio de una configuración y la reprograma. Devuelve null si ni
+     * siquiera se pudo reprogramar.
      */
-    private void sendReminderToUser(ReminderConfiguration config) {
+    private Outcome dispatch(ReminderConfiguration config, long processCount, ZonedDateTime now) {
+        User user = config.getUser();
         try {
-            User user = config.getUser();
+            // Slots missed while the application was down are not sent hours later. Lateness counts from
+            // the original slot, so failed sends stop retrying once maxLateness has passed
+            if (scheduledSlot(config, config.getNextDueAt()).isBefore(now.minus(maxLateness).toOffsetDateTime())) {
+                reminderConfigRepository.reschedule(config.getId(), nextDueAt(config, now));
+                missed.increment();
+                return Outcome.MISSED;
+            }
+            if (processCount == 0) {
+                reminderConfigRepository.reschedule(config.getId(), nextDueAt(config, now));
+                skipped.increment();
+                log.debug("Usuario {} no tiene procesos activos para recordatorio", user.getEmail());
+                return Outcome.SKIPPED;
+            }
 
-            // Obtener cantidad de procesos activos del usuario
-            List<UserLegalProcess> activeProcesses = userLegalProcessRepository
-                    .findByUserDocumentNumber(user.getDocumentNumber());
+            emailService.sendActuationReminderEmail(user, (int) processCount);
+            OffsetDateTime sentAt = OffsetDateTime.now();
+            config.setLastReminderSent(sentAt);
+            reminderConfigRepository.markSent(config.getId(), sentAt, nextDueAt(config, now));
+            sent.increment();
+            log.info("Recordatorio enviado a usuario: {}", user.getEmail());
+            return Outcome.SENT;
+        } catch (Exception e) {
+            failed.increment();
+            log.error("Error al enviar recordatorio a usuario {}: {}", user.getEmail(), e.getMessage(), e);
+            try {
+                reminderConfigRepository.reschedule(config.getId(), now.plus(retryDelay).toOffsetDateTime());
+                return Outcome.FAILED;
+            } catch (Exception rescheduleError) {
+                return null;
+            }
+        }
+    }
 
-            int processCount = activeProcesses.size();
+    /**
+     * Próximo envío de la configuración posterior a {@code now}: a la hora y minuto configurados, no
+     * antes de {@code frequencyDays} días desde el último envío, y nunca si la hora cae fuera del
+     * rango permitido o los recordatorios están deshabilitados (null).
+     */
+    static OffsetDateTime nextDueAt(ReminderConfiguration config, ZonedDateTime now) {
+        if (!Boolean.TRUE.equals(config.getEnabled())) return null;
+        int hour = config.getReminderHour();
+        if (hour < config.getStartHour() || hour >= config.getEndHour()) return null;
 
-            if (processCount > 0) {
-                // Enviar correo de recordatorio
-                emailService.sendActuationReminderEmail(user, processCount);
+        ZonedDateTime local = now.withZoneSameInstant(ZONE);
+        LocalDate date = local.toLocalDate();
+        OffsetDateTime lastSent = config.getLastReminderSent();
+        if (lastSent != null) {
+            LocalDate earliest = lastSent.atZoneSameInstant(ZONE).toLocalDate()
+                    .plusDays(Math.max(1, config.getFrequencyDays()));
+            if (earliest.isAfter(date)) date = earliest;
+        }
+        ZonedDateTime candidate = date.atTime(hour, config.getReminderMinute()).atZone(ZONE);
+        if (!candidate.isAfter(local)) candidate = candidate.plusDays(1);
+        return candidate.toOffsetDateTime();
+    }
 
-                // Actualizar la fecha del último recordatorio enviado
-                config.setLastReminderSent(OffsetDateTime.now());
-                reminderConfigRepository.save(config);
+    /**
+     * Hora programada a la que corresponde {@code dueAt}: la misma para un envío normal y la original
+     * para un reintento (la última ocurrencia de la hora y minuto configurados que no es posterior).
+     */
+    static OffsetDateTime scheduledSlot(ReminderConfiguration config, OffsetDateTime dueAt) {
+        ZonedDateTime local = dueAt.atZoneSameInstant(ZONE);
+        ZonedDateTime slot = local.toLocalDate().atTime(config.getReminderHour(), config.getReminderMinute()).atZone(ZONE);
+        if (slot.isAfter(local)) slot = slot.minusDays(1);
+        return slot.toOffsetDateTime();
+    }
 
-                log.info("Recordatorio enviado a usuario: {}", user.getEmail());
-            } else {
-                log.debug("Usuario {} no tiene procesos activos para recordatorio", user.getEmail());
-            }
-        } catch (Exception e) {
-            log.error("Error al enviar recordatorio a usuario: {}", e.getMessage(), e);
+    // Configurations created before next_due_at existed get their first slot on the first run
+    private void backfillNextDueAt() {
+        ZonedDateTime now = ZonedDateTime.now(ZONE);
+        List<ReminderConfiguration> pending = reminderConfigRepository.findByEnabledTrueAndNextDueAtIsNull();
+        for (ReminderConfiguration config : pending) {
+            OffsetDateTime next = nextDueAt(config, now);
+            if (next != null) reminderConfigRepository.reschedule(config.getId(), next);
+        }
+        if (!pending.isEmpty()) {
+            log.info("next_due_at calculado para {} configuraciones de recordatorio", pending.size());
         }
     }
 
@@ -138,6 +268,7 @@ public class ReminderService implements IReminderService {
         return reminderConfigRepository.findByUser(user)
                 .orElseGet(() -> {
                     ReminderConfiguration newConfig = new ReminderConfiguration(user);
+                    newConfig.setNextDueAt(nextDueAt(newConfig, ZonedDateTime.now(ZONE)));
                     return reminderConfigRepository.save(newConfig);
                 });
     }
@@ -167,6 +298,7 @@ public class ReminderService implements IReminderService {
             config.setEndHour(updatedConfig.getEndHour());
         }
 
+        config.setNextDueAt(nextDueAt(config, ZonedDateTime.now(ZONE)));
         config.setUpdatedAt(OffsetDateTime.now());
         return reminderConfigRepository.save(config);
     }
@@ -184,8 +316,13 @@ public class ReminderService implements IReminderService {
     public ReminderConfiguration toggleReminders(User user, boolean enabled) {
         ReminderConfiguration config = getOrCreateReminderConfig(user);
         config.setEnabled(enabled);
+        config.setNextDueAt(nextDueAt(config, ZonedDateTime.now(ZONE)));
         config.setUpdatedAt(OffsetDateTime.now());
         return reminderConfigRepository.save(config);
     }
-}
 
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -2,19 +2,26 @@ package com.justiconsulta.store.service.contract;
 
 import com.justiconsulta.store.dto.response.HistoryResponseDto;
 import com.justiconsulta.store.dto.response.LegalProcessResponseDto;
+import com.justiconsulta.store.service.CourtEndpoint;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.ResponseEntity;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface ILegalProcessService {
     ResponseEntity<?> removeAssociation(String numeroRadicacion);
     ResponseEntity<List<LegalProcessResponseDto>> getAllLegalProcesses();
     ResponseEntity<?> associateProcessToUser(String numeroRadicacion);
-    ResponseEntity<List<HistoryResponseDto>> getUserHistory();
+    ResponseEntity<List<HistoryResponseDto>> getUserHistory(String cursor, int limit, boolean includeResult);
     ResponseEntity<?> getLegalProcess(String numeroRadicacion, boolean soloActivos, int pagina, String documentNumberHeader);
     ResponseEntity<?> publicGetLegalProcess(String numeroRadicacion, boolean soloActivos, int pagina);
+    CompletableFuture<ResponseEntity<?>> publicGetLegalProcessAsync(String numeroRadicacion, boolean soloActivos, int pagina);
     ResponseEntity<?> getProcessDetail(String idProceso);
     ResponseEntity<?> getProcessSubjects(String idProceso, int pagina);
     ResponseEntity<?> getProcessDocuments(String idProceso);
     ResponseEntity<?> getProcessActuaciones(String idProceso, int pagina);
+    // Devuelve null cuando el cuerpo del upstream ya se copió a servletResponse
+    ResponseEntity<?> streamProcessResource(CourtEndpoint endpoint, String idProceso, int pagina, HttpServletResponse servletResponse);
+    CompletableFuture<ResponseEntity<?>> getProcessDossier(String idProceso, int pagina);
 }
@@ -4,6 +4,8 @@ import com.justiconsulta.store.model.Action;
 import com.justiconsulta.store.repository.ActionRepository;
 import com.justiconsulta.store.service.ActuationService;
 import com.justiconsulta.store.service.ApiClient;
+import com.justiconsulta.store.service.ProcessIdResolver;
+import com.justiconsulta.store.service.Radicado;
 import com.justiconsulta.store.service.contract.IActionService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -18,11 +20,14 @@ public class ActionServiceImpl implements IActionService {
     private final ActionRepository actionRepository;
     private final ActuationService actuationService;
     private final ApiClient apiClient;
+    private final ProcessIdResolver processIdResolver;
 
-    public ActionServiceImpl(ActionRepository actionRepository, ActuationService actuationService, ApiClient apiClient) {
+    public ActionServiceImpl(ActionRepository actionRepository, ActuationService actuationService, ApiClient apiClient,
+                             ProcessIdResolver processIdResolver) {
         this.actionRepository = actionRepository;
         this.actuationService = actuationService;
         this.apiClient = apiClient;
+        this.processIdResolver = processIdResolver;
     }
 
     @Override
@@ -38,14 +43,14 @@ public class ActionServiceImpl implements IActionService {
     @Override
     public ResponseEntity<?> getActuaciones(String idProceso, int pagina) {
         String resolvedId;
-        if (isValidNumeroRadicacion(idProceso)) {
-            Optional<String> idOpt = apiClient.getProcessIdByNumeroRadicacion(idProceso);
+        if (Radicado.isValid(idProceso)) {
+            Optional<String> idOpt = processIdResolver.resolve(idProceso);
             if (idOpt.isEmpty() || idOpt.get().isBlank()) {
                 return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
                         .body(java.util.Map.of("message", "Proceso no encontrado."));
             }
             resolvedId = idOpt.get();
-        } else if (isNumeric(idProceso)) {
+        } else if (Radicado.isDigits(idProceso)) {
             resolvedId = idProceso;
         } else {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -63,12 +68,6 @@ public class ActionServiceImpl implements IActionService {
         }
     }
 
-    private boolean isValidNumeroRadicacion(String value) {
-        return value != null && value.matches("\\d{23}");
-    }
 
-    private boolean isNumeric(String value) {
-        return value != null && value.matches("\\d+");
-    }
 }
 
@@ -1,8 +1,9 @@
 package com.justiconsulta.store.service.impl;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.justiconsulta.store.dto.response.HistoryResponseDto;
+import com.justiconsulta.store.dto.response.HistorySummaryDto;
 import com.justiconsulta.store.dto.response.LegalProcessResponseDto;
 import com.justiconsulta.store.model.History;
 import com.justiconsulta.store.model.LegalProcess;
@@ -13,23 +14,41 @@ import com.justiconsulta.store.repository.HistoryRepository;
 import com.justiconsulta.store.repository.LegalProcessRepository;
 import com.justiconsulta.store.repository.UserLegalProcessRepository;
 import com.justiconsulta.store.repository.UserRepository;
+import com.justiconsulta.store.security.AuthenticatedUser;
+import com.justiconsulta.store.security.UserIdentityCache;
 import com.justiconsulta.store.service.ApiClient;
+import com.justiconsulta.store.service.AsyncApiClient;
+import com.justiconsulta.store.service.CourtEndpoint;
+import com.justiconsulta.store.service.CourtPayloadExtractor;
+import com.justiconsulta.store.service.CourtProcessSnapshot;
+import com.justiconsulta.store.service.HistoryPayloadStore;
+import com.justiconsulta.store.service.HistoryWriter;
+import com.justiconsulta.store.service.ProcessIdResolver;
+import com.justiconsulta.store.service.Radicado;
 import com.justiconsulta.store.service.contract.ILegalProcessService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
 public class LegalProcessServiceImpl implements ILegalProcessService {
     private static final Logger log = LoggerFactory.getLogger(LegalProcessServiceImpl.class);
+    private static final int MAX_HISTORY_PAGE = 200;
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     private final LegalProcessRepository legalProcessRepository;
     private final ApiClient apiClient;
@@ -37,21 +56,39 @@ public class LegalProcessServiceImpl implements ILegalProcessService {
     private final UserLegalProcessRepository userLegalProcessRepository;
     private final HistoryRepository historyRepository;
     private final NotificationServiceImpl notificationService;
+    private final ProcessIdResolver processIdResolver;
+    private final AsyncApiClient asyncApiClient;
+    private final ObjectMapper objectMapper;
+    private final UserIdentityCache identityCache;
+    private final HistoryWriter historyWriter;
+    private final HistoryPayloadStore historyPayloadStore;
+    private final CourtPayloadExtractor payloadExtractor;
 
     public LegalProcessServiceImpl(LegalProcessRepository legalProcessRepository, ApiClient apiClient,
                                    UserRepository userRepository, UserLegalProcessRepository userLegalProcessRepository,
-                                   HistoryRepository historyRepository, NotificationServiceImpl notificationService) {
+                                   HistoryRepository historyRepository, NotificationServiceImpl notificationService,
+                                   ProcessIdResolver processIdResolver, AsyncApiClient asyncApiClient,
+                                   ObjectMapper objectMapper, UserIdentityCache identityCache,
+                                   HistoryWriter historyWriter, HistoryPayloadStore historyPayloadStore,
+                                   CourtPayloadExtractor payloadExtractor) {
         this.legalProcessRepository = legalProcessRepository;
+        this.objectMapper = objectMapper;
         this.apiClient = apiClient;
+        this.asyncApiClient = asyncApiClient;
         this.userRepository = userRepository;
         this.userLegalProcessRepository = userLegalProcessRepository;
         this.historyRepository = historyRepository;
         this.notificationService = notificationService;
+        this.processIdResolver = processIdResolver;
+        this.identityCache = identityCache;
+        this.historyWriter = historyWriter;
+        this.historyPayloadStore = historyPayloadStore;
+        this.payloadExtractor = payloadExtractor;
     }
 
     @Override
     public ResponseEntity<?> removeAssociation(String numeroRadicacion) {
-        if (!isValidNumeroRadicacion(numeroRadicacion)) {
+        if (!Radicado.isValid(numeroRadicacion)) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("message", "El número de radicación debe tener exactamente 23 dígitos numéricos"));
         }
@@ -97,18 +134,13 @@ public class LegalProcessServiceImpl implements ILegalProcessService {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        String principal = auth.getName();
-        String resolvedDocumentNumber = resolveDocumentNumber(principal);
+        // The resolved snapshot already proves the user exists locally
+        String resolvedDocumentNumber = resolveDocumentNumber(auth);
 
         if (resolvedDocumentNumber == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        Optional<User> user = userRepository.findByDocumentNumber(resolvedDocumentNumber);
-        if (user.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-
         List<LegalProcess> processes = legalProcessRepository.findByIdUserDocumentNumber(resolvedDocumentNumber);
         List<LegalProcessResponseDto> dtos = processes.stream()
                 .map(p -> new LegalProcessResponseDto(
@@ -122,7 +154,7 @@ public class LegalProcessServiceImpl implements ILegalProcessService {
 
     @Override
     public ResponseEntity<?> associateProcessToUser(String numeroRadicacion) {
-        if (!isValidNumeroRadicacion(numeroRadicacion)) {
+        if (!Radicado.isValid(numeroRadicacion)) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("message", "El número de radicación debe tener exactamente 23 dígitos numéricos"));
         }
@@ -132,25 +164,25 @@ public class LegalProcessServiceImpl implements ILegalProcessService {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("No autenticado");
         }
 
-        String principal = auth.getName();
-        String documentNumber = resolveDocumentNumber(principal);
+        String documentNumber = resolveDocumentNumber(auth);
 
         if (documentNumber == null || documentNumber.isBlank()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body("No fue posible resolver el usuario desde el token");
         }
 
-        Optional<User> user = userRepository.findByDocumentNumber(documentNumber);
-        if (user.isEmpty()) {
-            return ResponseEntity.unprocessableEntity().body("Usuario no encontrado.");
+        // Una sola consulta a la Rama Judicial: validez, idProceso y fecha de última actuación salen de aquí
+        CourtProcessSnapshot snapshot = apiClient.getProcessSnapshot(numeroRadicacion);
+        if (snapshot.isUnavailable()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("La Rama Judicial no está disponible en este momento, intente más tarde.");
         }
-
-        boolean processExists = apiClient.validateId(numeroRadicacion);
-        if (!processExists) {
+        if (!snapshot.found()) {
             return ResponseEntity.unprocessableEntity().body("Proceso no encontrado.");
         }
+        snapshot.idProcesoIfPresent().ifPresent(idProceso -> processIdResolver.prime(numeroRadicacion, idProceso));
 
-        if (!ensureLegalProcessExists(numeroRadicacion, documentNumber)) {
+        if (!ensureLegalProcessExists(numeroRadicacion, documentNumber, snapshot)) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("No fue posible crear el proceso legal en BD");
         }
@@ -166,35 +198,58 @@ public class LegalProcessServiceImpl implements ILegalProcessService {
     }
 
     @Override
-    public ResponseEntity<List<HistoryResponseDto>> getUserHistory() {
+    public ResponseEntity<List<HistoryResponseDto>> getUserHistory(String cursor, int limit, boolean includeResult) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth == null || !auth.isAuthenticated() || auth.getPrincipal() == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        String principal = auth.getName();
-        String resolvedDocumentNumber = resolveDocumentNumber(principal);
+        // The resolved snapshot already proves the user exists locally
+        String resolvedDocumentNumber = resolveDocumentNumber(auth);
 
         if (resolvedDocumentNumber == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        Optional<User> user = userRepository.findByDocumentNumber(resolvedDocumentNumber);
-        if (user.isEmpty()) {
-            return ResponseEntity.notFound().build();
+        int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_PAGE));
+        // Se pide una fila extra para saber si hay página siguiente sin hacer un COUNT
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<HistorySummaryDto> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = historyRepository.findFirstPage(resolvedDocumentNumber, includeResult, page);
+        } else {
+            Optional<HistoryCursor> decoded = HistoryCursor.decode(cursor);
+            if (decoded.isEmpty()) {
+                return ResponseEntity.badRequest().build();
+            }
+            rows = historyRepository.findPageAfter(resolvedDocumentNumber, decoded.get().date(), decoded.get().id(),
+                    includeResult, page);
         }
 
-        List<History> history = historyRepository.findByUserDocumentNumberOrderByDateDesc(resolvedDocumentNumber);
-        List<HistoryResponseDto> dtos = history.stream()
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) rows = rows.subList(0, pageSize);
+
+        // Filas antiguas traen result; las nuevas solo el hash del cuerpo guardado en history_payload
+        Map<String, String> payloads = includeResult
+                ? historyPayloadStore.loadAll(rows.stream().filter(h -> h.getResult() == null).map(HistorySummaryDto::getResultHash).toList())
+                : Map.of();
+        List<HistoryResponseDto> dtos = rows.stream()
                 .map(h -> new HistoryResponseDto(h.getId(), h.getLegalProcessId(), h.getActivitySeriesId(),
-                        h.getDate(), h.getResult(), h.getCreatedAt(), h.getUserDocumentNumber()))
+                        h.getDate(), h.getResult() != null ? h.getResult() : payloads.get(h.getResultHash()),
+                        h.getCreatedAt(), h.getUserDocumentNumber()))
                 .collect(Collectors.toList());
-        return ResponseEntity.ok(dtos);
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (hasMore) {
+            HistorySummaryDto last = rows.get(rows.size() - 1);
+            builder.header(NEXT_CURSOR_HEADER, new HistoryCursor(last.getDate(), last.getId()).encode());
+        }
+        return builder.body(dtos);
     }
 
     @Override
     public ResponseEntity<?> getLegalProcess(String numeroRadicacion, boolean soloActivos, int pagina, String documentNumberHeader) {
-        if (!isValidNumeroRadicacion(numeroRadicacion)) {
+        if (!Radicado.isValid(numeroRadicacion)) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("message", "El número de radicación debe tener exactamente 23 dígitos numéricos"));
         }
@@ -205,22 +260,18 @@ public class LegalProcessServiceImpl implements ILegalProcessService {
 
         ResponseEntity<String> response = apiClient.getByNumeroRadicacion(numeroRadicacion, queryParams);
 
-        String resolvedDocumentNumber = null;
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String resolvedDocumentNumber = null;
         if (auth != null && auth.isAuthenticated() && auth.getPrincipal() != null) {
-            String principal = auth.getName();
-            resolvedDocumentNumber = resolveDocumentNumber(principal);
-        }
-
-        if (resolvedDocumentNumber == null && documentNumberHeader != null && !documentNumberHeader.isBlank()) {
-            resolvedDocumentNumber = documentNumberHeader;
+            resolvedDocumentNumber = resolveDocumentNumber(auth);
         }
 
         if (resolvedDocumentNumber != null) {
-            Optional<User> userOpt = userRepository.findByDocumentNumber(resolvedDocumentNumber);
-            if (userOpt.isPresent()) {
-                saveHistory(resolvedDocumentNumber, numeroRadicacion, response);
-            }
+            saveHistory(resolvedDocumentNumber, numeroRadicacion, response);
+        } else if (documentNumberHeader != null && !documentNumberHeader.isBlank()
+                && userRepository.findByDocumentNumber(documentNumberHeader).isPresent()) {
+            // Only the unauthenticated header path still needs the existence check
+            saveHistory(documentNumberHeader, numeroRadicacion, response);
         }
 
         if (response == null) {
@@ -229,7 +280,7 @@ public class LegalProcessServiceImpl implements ILegalProcessService {
         }
         if (response.getStatusCode().is2xxSuccessful()) {
             if (response.getBody() != null) {
-                return ResponseEntity.ok(response.getBody());
+                return okWithAge(response).body(response.getBody());
             }
             return ResponseEntity.ok(Map.of("message", "No content from external API"));
         }
@@ -238,7 +289,7 @@ public class LegalProcessServiceImpl implements ILegalProcessService {
 
     @Override
     public ResponseEntity<?> publicGetLegalProcess(String numeroRadicacion, boolean soloActivos, int pagina) {
-        if (!isValidNumeroRadicacion(numeroRadicacion)) {
+        if (!Radicado.isValid(numeroRadicacion)) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("message", "El número de radicación debe tener exactamente 23 dígitos numéricos"));
         }
@@ -246,186 +297,239 @@ public class LegalProcessServiceImpl implements ILegalProcessService {
         queryParams.put("SoloActivos", String.valueOf(soloActivos));
         queryParams.put("pagina", String.valueOf(pagina));
         ResponseEntity<String> response = apiClient.getByNumeroRadicacion(numeroRadicacion, queryParams);
+        return toPublicResponse(response);
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<?>> publicGetLegalProcessAsync(String numeroRadicacion, boolean soloActivos, int pagina) {
+        if (!Radicado.isValid(numeroRadicacion)) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", "El número de radicación debe tener exactamente 23 dígitos numéricos")));
+        }
+        Map<String, String> queryParams = new HashMap<>();
+        queryParams.put("SoloActivos", String.valueOf(soloActivos));
+        queryParams.put("pagina", String.valueOf(pagina));
+        return asyncApiClient.getByNumeroRadicacion(numeroRadicacion, queryParams)
+                .thenApply(this::toPublicResponse);
+    }
 
+    private ResponseEntity<?> toPublicResponse(ResponseEntity<String> response) {
         if (response == null) {
             return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
                     .body(Map.of("message", "No response from external API"));
         }
         if (response.getStatusCode().is2xxSuccessful()) {
-            return ResponseEntity.ok(response.getBody() != null ? response.getBody() :
+            return okWithAge(response).body(response.getBody() != null ? response.getBody() :
                     Map.of("message", "No content from external API"));
         }
         return ResponseEntity.status(response.getStatusCode()).body(response.getBody());
     }
 
-    @Override
-    public ResponseEntity<?> getProcessDetail(String idProceso) {
-        String resolvedId;
-        if (isValidNumeroRadicacion(idProceso)) {
-            Optional<String> idOpt = apiClient.getProcessIdByNumeroRadicacion(idProceso);
-            if (idOpt.isEmpty() || idOpt.get().isBlank()) {
-                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
-                        .body(Map.of("message", "Proceso no encontrado."));
+    // Cursor opaco para el historial: posición (date, id) de la última fila entregada
+    record HistoryCursor(OffsetDateTime date, UUID id) {
+        String encode() {
+            String raw = date.toString() + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Optional<HistoryCursor> decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int sep = raw.indexOf('|');
+                if (sep < 0) return Optional.empty();
+                return Optional.of(new HistoryCursor(OffsetDateTime.parse(raw.substring(0, sep)),
+                        UUID.fromString(raw.substring(sep + 1))));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                return Optional.empty();
             }
-            resolvedId = idOpt.get();
-        } else if (isNumeric(idProceso)) {
-            resolvedId = idProceso;
-        } else {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("message", "Parámetro inválido: debe ser número de radicación (23 dígitos) o idProceso numérico"));
         }
+    }
 
-        ResponseEntity<String> response = apiClient.getProcessDetail(resolvedId);
+    // Las respuestas servidas desde la caché (frescas o stale) traen Age: se conserva para el cliente
+    private static ResponseEntity.BodyBuilder okWithAge(ResponseEntity<String> response) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        String age = response.getHeaders().getFirst(HttpHeaders.AGE);
+        if (age != null) builder.header(HttpHeaders.AGE, age);
+        return builder;
+    }
 
-        if (response == null) {
-            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
-                    .body(Map.of("message", "No response from external API"));
-        }
-        if (response.getStatusCode().is2xxSuccessful()) {
-            if (response.getBody() != null) return ResponseEntity.ok(response.getBody());
-            return ResponseEntity.ok(Map.of("message", "No content from external API"));
-        }
-        return ResponseEntity.status(response.getStatusCode()).body(response.getBody());
+    @Override
+    public ResponseEntity<?> getProcessDetail(String idProceso) {
+        ResolvedProcessId resolved = resolveProcessId(idProceso);
+        if (resolved.error() != null) return resolved.error();
+        return toProxyResponse(CourtEndpoint.PROCESS_DETAIL, apiClient.getProcessDetail(resolved.id()));
     }
 
     @Override
     public ResponseEntity<?> getProcessSubjects(String idProceso, int pagina) {
-        String resolvedId;
-        if (isValidNumeroRadicacion(idProceso)) {
-            Optional<String> idOpt = apiClient.getProcessIdByNumeroRadicacion(idProceso);
-            if (idOpt.isEmpty() || idOpt.get().isBlank()) {
-                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
-                        .body(Map.of("message", "Proceso no encontrado."));
-            }
-            resolvedId = idOpt.get();
-        } else if (isNumeric(idProceso)) {
-            resolvedId = idProceso;
-        } else {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("message", "Parámetro inválido: debe ser número de radicación (23 dígitos) o idProceso numérico"));
-        }
+        ResolvedProcessId resolved = resolveProcessId(idProceso);
+        if (resolved.error() != null) return resolved.error();
+        return toProxyResponse(CourtEndpoint.PROCESS_SUBJECTS, apiClient.getProcessSubjects(resolved.id(), pagina));
+    }
 
-        ResponseEntity<String> response = apiClient.getProcessSubjects(resolvedId, pagina);
+    @Override
+    public ResponseEntity<?> getProcessDocuments(String idProceso) {
+        ResolvedProcessId resolved = resolveProcessId(idProceso);
+        if (resolved.error() != null) return resolved.error();
+        return toProxyResponse(CourtEndpoint.PROCESS_DOCUMENTS, apiClient.getProcessDocuments(resolved.id()));
+    }
 
-        if (response == null) {
-            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
-                    .body(Map.of("message", "No response from external API"));
-        }
-        if (response.getStatusCode().is2xxSuccessful()) {
-            if (response.getBody() != null && !response.getBody().isBlank())
-                return ResponseEntity.ok(response.getBody());
-            return ResponseEntity.ok(Map.of("message", "No subjects associated with this process"));
-        }
-        return ResponseEntity.status(response.getStatusCode()).body(response.getBody());
+    @Override
+    public ResponseEntity<?> getProcessActuaciones(String idProceso, int pagina) {
+        ResolvedProcessId resolved = resolveProcessId(idProceso);
+        if (resolved.error() != null) return resolved.error();
+        return toProxyResponse(CourtEndpoint.PROCESS_ACTUACIONES, apiClient.getProcessActuaciones(resolved.id(), pagina));
     }
 
     @Override
-    public ResponseEntity<?> getProcessDocuments(String idProceso) {
-        String resolvedId;
-        if (isValidNumeroRadicacion(idProceso)) {
-            Optional<String> idOpt = apiClient.getProcessIdByNumeroRadicacion(idProceso);
+    public ResponseEntity<?> streamProcessResource(CourtEndpoint endpoint, String idProceso, int pagina,
+                                                   HttpServletResponse servletResponse) {
+        ResolvedProcessId resolved = resolveProcessId(idProceso);
+        if (resolved.error() != null) return resolved.error();
+        ResponseEntity<String> response = apiClient.streamProcessResource(endpoint, resolved.id(), pagina, servletResponse);
+        // null: el cuerpo ya se copió a la respuesta del servlet
+        return response == null ? null : toProxyResponse(endpoint, response);
+    }
+
+    // idProceso numérico tal cual, o el de un número de radicación; si no se puede, la respuesta de error lista
+    private record ResolvedProcessId(String id, ResponseEntity<?> error) {}
+
+    private ResolvedProcessId resolveProcessId(String idProceso) {
+        if (Radicado.isValid(idProceso)) {
+            Optional<String> idOpt = processIdResolver.resolve(idProceso);
             if (idOpt.isEmpty() || idOpt.get().isBlank()) {
-                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
-                        .body(Map.of("message", "Proceso no encontrado."));
+                return new ResolvedProcessId(null, ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                        .body(Map.of("message", "Proceso no encontrado.")));
             }
-            resolvedId = idOpt.get();
-        } else if (isNumeric(idProceso)) {
-            resolvedId = idProceso;
-        } else {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("message", "Parámetro inválido: debe ser número de radicación (23 dígitos) o idProceso numérico"));
+            return new ResolvedProcessId(idOpt.get(), null);
         }
+        if (Radicado.isDigits(idProceso)) {
+            return new ResolvedProcessId(idProceso, null);
+        }
+        return new ResolvedProcessId(null, ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("message", "Parámetro inválido: debe ser número de radicación (23 dígitos) o idProceso numérico")));
+    }
 
-        ResponseEntity<String> response = apiClient.getProcessDocuments(resolvedId);
-
+    // Respuesta común de detalle/sujetos/documentos/actuaciones, con el mensaje propio de cada recurso vacío
+    private static ResponseEntity<?> toProxyResponse(CourtEndpoint endpoint, ResponseEntity<String> response) {
         if (response == null) {
             return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
                     .body(Map.of("message", "No response from external API"));
         }
+        String emptyMessage = emptyMessage(endpoint);
+        String body = response.getBody();
         if (response.getStatusCode().is2xxSuccessful()) {
-            if (response.getBody() != null && !response.getBody().isBlank())
-                return ResponseEntity.ok(response.getBody());
-            return ResponseEntity.ok(Map.of("message", "El proceso no tiene documentos asociados"));
+            // El detalle solo trata como vacío un cuerpo ausente; los demás también uno en blanco
+            boolean empty = body == null || (endpoint != CourtEndpoint.PROCESS_DETAIL && body.isBlank());
+            return empty ? ResponseEntity.ok(Map.of("message", emptyMessage)) : ResponseEntity.ok(body);
         }
-        // Si es 404, no es error, simplemente no hay documentos
-        if (response.getStatusCode() == HttpStatus.NOT_FOUND) {
-            return ResponseEntity.ok(Map.of("message", "El proceso no tiene documentos asociados"));
+        // Si es 404 en documentos, no es error, simplemente no hay documentos
+        if (isDocumentsNotFound(endpoint, response)) {
+            return ResponseEntity.ok(Map.of("message", emptyMessage));
         }
-        return ResponseEntity.status(response.getStatusCode()).body(response.getBody());
+        return ResponseEntity.status(response.getStatusCode()).body(body);
+    }
+
+    private static String emptyMessage(CourtEndpoint endpoint) {
+        return switch (endpoint) {
+            case PROCESS_SUBJECTS -> "No subjects associated with this process";
+            case PROCESS_DOCUMENTS -> "El proceso no tiene documentos asociados";
+            case PROCESS_ACTUACIONES -> "No actuaciones asociadas a este proceso";
+            default -> "No content from external API";
+        };
+    }
+
+    // Compara el código numérico: getStatusCode() no siempre es una constante de HttpStatus
+    private static boolean isDocumentsNotFound(CourtEndpoint endpoint, ResponseEntity<String> response) {
+        return endpoint == CourtEndpoint.PROCESS_DOCUMENTS && response.getStatusCode().value() == 404;
     }
 
     @Override
-    public ResponseEntity<?> getProcessActuaciones(String idProceso, int pagina) {
-        String resolvedId;
-        if (isValidNumeroRadicacion(idProceso)) {
-            Optional<String> idOpt = apiClient.getProcessIdByNumeroRadicacion(idProceso);
-            if (idOpt.isEmpty() || idOpt.get().isBlank()) {
-                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
-                        .body(Map.of("message", "Proceso no encontrado."));
+    public CompletableFuture<ResponseEntity<?>> getProcessDossier(String idProceso, int pagina) {
+        ResolvedProcessId resolved = resolveProcessId(idProceso);
+        if (resolved.error() != null) return CompletableFuture.completedFuture(resolved.error());
+        String resolvedId = resolved.id();
+
+        // Las cuatro consultas salen en paralelo: la latencia total es la de la más lenta
+        CompletableFuture<ResponseEntity<String>> detail = asyncApiClient.getProcessDetail(resolvedId);
+        CompletableFuture<ResponseEntity<String>> subjects = asyncApiClient.getProcessSubjects(resolvedId, pagina);
+        CompletableFuture<ResponseEntity<String>> documents = asyncApiClient.getProcessDocuments(resolvedId);
+        CompletableFuture<ResponseEntity<String>> actuaciones = asyncApiClient.getProcessActuaciones(resolvedId, pagina);
+
+        return CompletableFuture.allOf(detail, subjects, documents, actuaciones).thenApply(ignored -> {
+            ObjectNode dossier = objectMapper.createObjectNode();
+            dossier.put("idProceso", resolvedId);
+            ObjectNode errors = objectMapper.createObjectNode();
+            // Cada sección queda como en su endpoint propio: el mismo mensaje si está vacía o si documentos da 404
+            putSection(dossier, errors, "detail", CourtEndpoint.PROCESS_DETAIL, detail.join());
+            putSection(dossier, errors, "subjects", CourtEndpoint.PROCESS_SUBJECTS, subjects.join());
+            putSection(dossier, errors, "documents", CourtEndpoint.PROCESS_DOCUMENTS, documents.join());
+            putSection(dossier, errors, "actuaciones", CourtEndpoint.PROCESS_ACTUACIONES, actuaciones.join());
+            if (!errors.isEmpty()) {
+                dossier.set("errors", errors);
             }
-            resolvedId = idOpt.get();
-        } else if (isNumeric(idProceso)) {
-            resolvedId = idProceso;
-        } else {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("message", "Parámetro inválido: debe ser número de radicación (23 dígitos) o idProceso numérico"));
-        }
-
-        ResponseEntity<String> response = apiClient.getProcessActuaciones(resolvedId, pagina);
+            return ResponseEntity.ok(dossier);
+        });
+    }
 
+    private void putSection(ObjectNode dossier, ObjectNode errors, String name, CourtEndpoint endpoint,
+                            ResponseEntity<String> response) {
         if (response == null) {
-            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
-                    .body(Map.of("message", "No response from external API"));
+            dossier.putNull(name);
+            errors.putObject(name).put("status", HttpStatus.BAD_GATEWAY.value())
+                    .put("message", "No response from external API");
+            return;
         }
         if (response.getStatusCode().is2xxSuccessful()) {
-            if (response.getBody() != null && !response.getBody().isBlank())
-                return ResponseEntity.ok(response.getBody());
-            return ResponseEntity.ok(Map.of("message", "No actuaciones asociadas a este proceso"));
+            String body = response.getBody();
+            if (body == null || (endpoint != CourtEndpoint.PROCESS_DETAIL && body.isBlank())) {
+                dossier.putObject(name).put("message", emptyMessage(endpoint));
+                return;
+            }
+            try {
+                dossier.set(name, objectMapper.readTree(body));
+            } catch (Exception e) {
+                dossier.put(name, body);
+            }
+            return;
         }
-        return ResponseEntity.status(response.getStatusCode()).body(response.getBody());
+        if (isDocumentsNotFound(endpoint, response)) {
+            dossier.putObject(name).put("message", emptyMessage(endpoint));
+            return;
+        }
+        dossier.putNull(name);
+        errors.putObject(name).put("status", response.getStatusCode().value())
+                .put("message", response.getBody());
     }
 
     // Helper methods
-    private boolean isValidNumeroRadicacion(String numeroRadicacion) {
-        return numeroRadicacion != null && numeroRadicacion.matches("\\d{23}");
-    }
-
-    private boolean isNumeric(String value) {
-        return value != null && value.matches("\\d+");
-    }
 
     private Optional<String> resolveDocumentNumberFromAuth() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth == null || !auth.isAuthenticated() || auth.getPrincipal() == null) {
             return Optional.empty();
         }
-        String principal = auth.getName();
-        return Optional.ofNullable(resolveDocumentNumber(principal));
+        return Optional.ofNullable(resolveDocumentNumber(auth));
     }
 
-    private String resolveDocumentNumber(String principal) {
-        if (principal == null || principal.isBlank()) return null;
-        try {
-            UUID supabaseId = UUID.fromString(principal);
-            Optional<User> u = userRepository.findBySupabaseUserId(supabaseId);
-            if (u.isPresent()) return u.get().getDocumentNumber();
-        } catch (IllegalArgumentException ex) {
-            Optional<User> u2 = userRepository.findByEmail(principal);
-            if (u2.isPresent()) return u2.get().getDocumentNumber();
-        }
-        return null;
+    // JwtAuthenticationFilter attaches the snapshot; the cache lookup covers other authentication paths
+    private String resolveDocumentNumber(Authentication auth) {
+        if (auth.getDetails() instanceof AuthenticatedUser user) {
+            return user.documentNumber();
+        }
+        return identityCache.resolve(auth.getName())
+                .map(AuthenticatedUser::documentNumber)
+                .orElse(null);
     }
 
-    private boolean ensureLegalProcessExists(String numeroRadicacion, String documentNumber) {
+    private boolean ensureLegalProcessExists(String numeroRadicacion, String documentNumber, CourtProcessSnapshot snapshot) {
         LegalProcess.LegalProcessId lpId = new LegalProcess.LegalProcessId(numeroRadicacion, documentNumber);
         Optional<LegalProcess> existing = legalProcessRepository.findById(lpId);
         if (existing.isPresent()) return true;
 
-        Optional<OffsetDateTime> lastActionOpt = apiClient.getLastActionDateByNumeroRadicacion(numeroRadicacion);
-
         LegalProcess lp = new LegalProcess();
         lp.setId(lpId);
-        lp.setLastActionDate(lastActionOpt.orElse(null));
+        lp.setLastActionDate(snapshot.lastActionDate());
         lp.setCreatedAt(OffsetDateTime.now());
         try {
             legalProcessRepository.save(lp);
@@ -443,94 +547,23 @@ public class LegalProcessServiceImpl implements ILegalProcessService {
         history.setActivitySeriesId(null);
         history.setDate(OffsetDateTime.now());
         if (response != null && response.getBody() != null) {
-            String body = response.getBody();
-            history.setResult(body.length() > 2000 ? body.substring(0, 2000) : body);
+            // Cuerpo completo: HistoryWriter lo guarda comprimido y deduplicado en history_payload
+            history.setResult(response.getBody());
         } else if (response != null) {
             history.setResult("HTTP " + response.getStatusCode().value());
         } else {
             history.setResult("No response from external API");
         }
         history.setCreatedAt(OffsetDateTime.now());
-        try {
-            historyRepository.save(history);
-        } catch (Exception e) {
-            log.warn("Failed to save history for user {} and process {}: {}", documentNumber, numeroRadicacion, e.getMessage());
-        }
+        // Se escribe en lote fuera del hilo de la petición; si la cola está llena se descarta (history.writer.dropped)
+        historyWriter.enqueue(history);
     }
 
     private String extractIdProcesoFromResponse(String numeroRadicacion, ResponseEntity<String> response) {
         if (response == null || response.getBody() == null) return numeroRadicacion;
-        String body = response.getBody();
-        ObjectMapper mapper = new ObjectMapper();
-        try {
-            JsonNode root = mapper.readTree(body);
-            List<String> candidates = new ArrayList<>();
-            if (root.isObject()) {
-                if (root.has("idProceso")) candidates.add(root.get("idProceso").asText());
-                if (root.has("id")) candidates.add(root.get("id").asText());
-                if (root.has("id_proceso")) candidates.add(root.get("id_proceso").asText());
-            }
-            if (root.isArray() && !root.isEmpty()) {
-                JsonNode first = root.get(0);
-                if (first.has("idProceso")) candidates.add(first.get("idProceso").asText());
-                if (first.has("id")) candidates.add(first.get("id").asText());
-                if (first.has("id_proceso")) candidates.add(first.get("id_proceso").asText());
-            }
-            if (candidates.isEmpty()) {
-                Iterator<String> it = root.fieldNames();
-                while (it.hasNext()) {
-                    String name = it.next();
-                    JsonNode val = root.get(name);
-                    String v = val != null ? val.asText() : null;
-                    if (v != null && v.matches("\\d{3,12}")) {
-                        candidates.add(v);
-                    }
-                }
-            }
-            for (String c : candidates) {
-                if (c != null && !c.isBlank()) {
-                    if (c.length() < numeroRadicacion.length()) return c;
-                    return c;
-                }
-            }
-        } catch (Exception e) {
-            log.debug("No se pudo parsear body para extraer idProceso: {}", e.getMessage());
-        }
+        Optional<String> idProceso = payloadExtractor.extractIdProceso(response.getBody());
+        if (idProceso.isPresent()) return idProceso.get();
         log.warn("No se pudo extraer idProceso desde la respuesta externa para numeroRadicacion={}, se usará el numero completo en historial", numeroRadicacion);
         return numeroRadicacion;
     }
-
-    /**
-     * Método auxiliar para obtener información del despacho desde la API
-     */
-    private String getDespachoFromApi(String numeroRadicacion) {
-        try {
-            Map<String, String> queryParams = new HashMap<>();
-            queryParams.put("SoloActivos", "false");
-            queryParams.put("pagina", "1");
-            ResponseEntity<String> response = apiClient.getByNumeroRadicacion(numeroRadicacion, queryParams);
-
-            if (response != null && response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                ObjectMapper mapper = new ObjectMapper();
-                JsonNode root = mapper.readTree(response.getBody());
-
-                // Buscar el campo "despacho" en la respuesta
-                if (root.has("procesos") && root.get("procesos").isArray() && !root.get("procesos").isEmpty()) {
-                    JsonNode firstProcess = root.get("procesos").get(0);
-                    if (firstProcess.has("despacho")) {
-                        return firstProcess.get("despacho").asText();
-                    }
-                }
-
-                // Alternativa: buscar directamente en el objeto raíz
-                if (root.has("despacho")) {
-                    return root.get("despacho").asText();
-                }
-            }
-        } catch (Exception e) {
-            log.debug("No se pudo obtener información del despacho para el proceso {}: {}", numeroRadicacion, e.getMessage());
-        }
-
-        return "Información no disponible";
-    }
 }
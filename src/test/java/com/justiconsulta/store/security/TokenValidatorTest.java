@@ -0,0 +1,125 @@
+package com.justiconsulta.store.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenValidatorTest {
+
+    private static final String SUPABASE_URL = "https://test.supabase.co";
+    private static final String ISSUER = SUPABASE_URL + "/auth/v1";
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+    private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+
+    @Test
+    void cachedResultIsNotReturnedAfterExp() throws Exception {
+        TokenValidator validator = new TokenValidator(null, SUPABASE_URL, SECRET, 100);
+        validator.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+        String token = hs256("user@test.co", NOW.plusSeconds(60));
+
+        TokenValidationResult first = validator.validate(token);
+        assertTrue(first.isValid());
+        assertEquals("user@test.co", first.getPrincipal());
+
+        validator.setClock(Clock.fixed(NOW.plusSeconds(59), ZoneOffset.UTC));
+        assertTrue(validator.validate(token).isValid());
+
+        validator.setClock(Clock.fixed(NOW.plusSeconds(61), ZoneOffset.UTC));
+        assertFalse(validator.validate(token).isValid());
+    }
+
+    @Test
+    void tamperedTokenIsVerifiedAgain() throws Exception {
+        TokenValidator validator = new TokenValidator(null, SUPABASE_URL, SECRET, 100);
+        validator.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+        String token = hs256("user@test.co", NOW.plusSeconds(3600));
+        assertTrue(validator.validate(token).isValid());
+
+        // Same header and signature, different claims: a different cache key that must fail verification
+        String[] parts = token.split("\\.");
+        String otherClaims = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                claims("admin@test.co", NOW.plusSeconds(3600)).toString().getBytes());
+        assertFalse(validator.validate(parts[0] + "." + otherClaims + "." + parts[2]).isValid());
+
+        String otherSignature = parts[2].substring(0, parts[2].length() - 2)
+                + (parts[2].endsWith("AA") ? "BB" : "AA");
+        assertFalse(validator.validate(parts[0] + "." + parts[1] + "." + otherSignature).isValid());
+    }
+
+    @Test
+    void cacheIsClearedWhenFull() throws Exception {
+        RSAKey oldKey = new RSAKeyGenerator(2048).keyID("old").generate();
+        RSAKey newKey = new RSAKeyGenerator(2048).keyID("new").generate();
+        StubJwkService jwks = new StubJwkService(new JWKSet(oldKey.toPublicJWK()));
+        TokenValidator validator = new TokenValidator(jwks, SUPABASE_URL, "", 2);
+        validator.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+
+        String first = rs256(oldKey, "a@test.co");
+        String second = rs256(oldKey, "b@test.co");
+        assertTrue(validator.validate(first).isValid());
+        assertTrue(validator.validate(second).isValid());
+
+        // Keys rotated: verified tokens are still served from the cache until it is cleared
+        jwks.keys = new JWKSet(newKey.toPublicJWK());
+        assertTrue(validator.validate(first).isValid());
+
+        // A third verified token finds the cache full, which drops the two old entries
+        assertTrue(validator.validate(rs256(newKey, "c@test.co")).isValid());
+        assertFalse(validator.validate(first).isValid());
+        assertFalse(validator.validate(second).isValid());
+    }
+
+    private static String hs256(String email, Instant exp) throws JOSEException {
+        SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claims(email, exp));
+        jwt.sign(new MACSigner(SECRET));
+        return jwt.serialize();
+    }
+
+    private static String rs256(RSAKey key, String email) throws JOSEException {
+        JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build();
+        SignedJWT jwt = new SignedJWT(header, claims(email, NOW.plusSeconds(3600)));
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+
+    private static JWTClaimsSet claims(String email, Instant exp) {
+        return new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .subject("user-id")
+                .claim("email", email)
+                .expirationTime(Date.from(exp))
+                .build();
+    }
+
+    private static final class StubJwkService extends JwkService {
+        private volatile JWKSet keys;
+
+        StubJwkService(JWKSet keys) {
+            super(SUPABASE_URL, 3600, 300, 30, 5000);
+            this.keys = keys;
+        }
+
+        @Override
+        public JWKSet getJwkSet(boolean forceRefresh) {
+            return keys;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.justiconsulta.store.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveRateLimiterTest {
+
+    // Refill is effectively off so tests only see the initial burst
+    private static final double NO_REFILL = 1e-9;
+    private static final long FAST = 1_000_000L;
+    private static final long SLOW = 500_000_000L;
+
+    @Test
+    void rejectsWithRateOnceBurstIsSpent() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(NO_REFILL, 2, 10, 1, 10, 100, 0.5);
+        assertEquals(AdaptiveRateLimiter.Rejection.NONE, limiter.tryAcquire());
+        assertEquals(AdaptiveRateLimiter.Rejection.NONE, limiter.tryAcquire());
+        assertEquals(AdaptiveRateLimiter.Rejection.RATE, limiter.tryAcquire());
+        assertEquals(2, limiter.inFlight());
+    }
+
+    @Test
+    void rejectsWithConcurrencyAtTheCurrentLimit() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(NO_REFILL, 10, 2, 1, 10, 100, 0.5);
+        assertEquals(AdaptiveRateLimiter.Rejection.NONE, limiter.tryAcquire());
+        assertEquals(AdaptiveRateLimiter.Rejection.NONE, limiter.tryAcquire());
+        assertEquals(AdaptiveRateLimiter.Rejection.CONCURRENCY, limiter.tryAcquire());
+
+        // A concurrency rejection does not spend a token
+        assertEquals(8, limiter.availableTokens(), 0.001);
+        limiter.release(true, FAST);
+        assertEquals(AdaptiveRateLimiter.Rejection.NONE, limiter.tryAcquire());
+    }
+
+    @Test
+    void limitGrowsAdditivelyOnFastSuccesses() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(NO_REFILL, 100, 4, 1, 5, 100, 0.5);
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire();
+            limiter.release(true, FAST);
+        }
+        // Four successes at limit ~4 add roughly one slot
+        assertTrue(limiter.limit() > 4.9 && limiter.limit() < 5.0, "limit=" + limiter.limit());
+
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+            limiter.release(true, FAST);
+        }
+        assertEquals(5, limiter.limit(), 0.0);
+    }
+
+    @Test
+    void limitBacksOffMultiplicativelyOnFailureOrSlowResponse() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(NO_REFILL, 100, 8, 2, 10, 100, 0.5);
+        limiter.tryAcquire();
+        limiter.release(false, FAST);
+        assertEquals(4, limiter.limit(), 0.0);
+
+        limiter.tryAcquire();
+        limiter.release(true, SLOW);
+        assertEquals(2, limiter.limit(), 0.0);
+
+        limiter.tryAcquire();
+        limiter.release(false, FAST);
+        assertEquals(2, limiter.limit(), 0.0);
+    }
+
+    @Test
+    void tooManyRequestsFromTheCourtShrinksTheLimit() {
+        // Initial limit 2, halves on failure down to 1
+        CourtApiGuard guard = new CourtApiGuard(true, 20, 10, 0.5, 30_000,
+                100, 100, 2, 1, 10, 2_000, 0.5, 5, 4, 0, new SimpleMeterRegistry());
+
+        guard.tryAcquire(CourtEndpoint.NUMERO_RADICACION)
+                .complete(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build());
+
+        // The limit is now 1: a second concurrent call is rejected instead of growing to 2.5
+        CourtApiGuard.Permit first = guard.tryAcquire(CourtEndpoint.NUMERO_RADICACION);
+        assertTrue(first.isGranted());
+        assertFalse(guard.tryAcquire(CourtEndpoint.NUMERO_RADICACION).isGranted());
+        first.complete(ResponseEntity.ok("{}"));
+    }
+
+    @Test
+    void releaseNeverDrivesInFlightNegative() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(NO_REFILL, 10, 4, 1, 10, 100, 0.5);
+        limiter.release(true, FAST);
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void tokensRefillOverTime() throws InterruptedException {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(1000, 1, 10, 1, 10, 100, 0.5);
+        assertEquals(AdaptiveRateLimiter.Rejection.NONE, limiter.tryAcquire());
+        Thread.sleep(20);
+        assertEquals(AdaptiveRateLimiter.Rejection.NONE, limiter.tryAcquire());
+        // Refill is capped at the burst size
+        assertTrue(limiter.availableTokens() <= 1.0);
+    }
+}
@@ -0,0 +1,85 @@
+package com.justiconsulta.store.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class ApiClientRevalidationTest {
+
+    private static final String BASE_URL = "https://court.test/api/v2";
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+    // actuaciones: TTL 120 s, stale-while-revalidate 600 s
+    private final CourtResponseCache responseCache = new CourtResponseCache(true, 100, 1_048_576,
+            60, 300, 300, 300, 120, 600, 3600, meterRegistry);
+    // The interactive budget allows a single call and never refills; the background one is untouched
+    private final CourtApiGuard guard = new CourtApiGuard(true, 20, 10, 0.5, 30_000,
+            0, 1, 10, 2, 50, 2_000, 0.7, 5, 4, 0, meterRegistry);
+    private final ApiClient client = new ApiClient(restTemplate, BASE_URL, responseCache, guard,
+            new CourtPayloadExtractor(new ObjectMapper()), meterRegistry, new MockEnvironment(), 1, 1024, 1024);
+
+    @Test
+    void backgroundMissIsFetchedButNotCached() {
+        String uri = client.processActuacionesUri("123", 1);
+        server.expect(requestTo(uri)).andRespond(withSuccess("{\"actuaciones\":[]}", MediaType.APPLICATION_JSON));
+
+        ResponseEntity<String> response = client.getProcessActuaciones("123", 1, CourtApiGuard.Priority.BACKGROUND);
+
+        server.verify();
+        assertEquals("{\"actuaciones\":[]}", response.getBody());
+        assertTrue(responseCache.get(CourtEndpoint.PROCESS_ACTUACIONES, uri).isEmpty());
+    }
+
+    @Test
+    void backgroundStaleHitIsRevalidatedWithTheBackgroundBudget() throws InterruptedException {
+        responseCache.setClock(Clock.fixed(START, ZoneOffset.UTC));
+        String uri = client.processActuacionesUri("123", 1);
+        server.expect(requestTo(uri)).andRespond(withSuccess("{\"v\":1}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo(uri)).andRespond(withSuccess("{\"v\":2}", MediaType.APPLICATION_JSON));
+        // Uses up the only interactive permit
+        client.getProcessActuaciones("123", 1);
+
+        responseCache.setClock(Clock.fixed(START.plus(Duration.ofSeconds(180)), ZoneOffset.UTC));
+        ResponseEntity<String> stale = client.getProcessActuaciones("123", 1, CourtApiGuard.Priority.BACKGROUND);
+        assertEquals("{\"v\":1}", stale.getBody());
+
+        // An interactive refresh would have been rejected and left the old body in place
+        waitUntil(() -> cachedBody(uri).filter("{\"v\":2}"::equals).isPresent());
+        server.verify();
+    }
+
+    private Optional<String> cachedBody(String uri) {
+        return responseCache.get(CourtEndpoint.PROCESS_ACTUACIONES, uri).map(ResponseEntity::getBody);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not reached within 5s");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
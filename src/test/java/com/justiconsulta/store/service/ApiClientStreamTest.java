@@ -0,0 +1,129 @@
+package com.justiconsulta.store.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class ApiClientStreamTest {
+
+    private static final String BASE_URL = "https://court.test/api/v2";
+    private static final String DETAIL_URI = BASE_URL + "/Proceso/Detalle/123";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+    private final CourtResponseCache responseCache = new CourtResponseCache(true, 100, 1_048_576,
+            60, 300, 300, 300, 120, 600, 3600, meterRegistry);
+    // A single failure is enough to open the breaker
+    private final CourtApiGuard guard = new CourtApiGuard(true, 1, 1, 0.5, 30_000,
+            100, 100, 10, 2, 50, 2_000, 0.7, 5, 4, 30_000, meterRegistry);
+
+    @Test
+    void bodyThatFitsTheTapIsStreamedAndCached() {
+        ApiClient client = client(1024);
+        String body = "{\"idProceso\":123,\"despacho\":\"JUZGADO 003 CIVIL\"}";
+        server.expect(requestTo(DETAIL_URI)).andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess(body, MediaType.APPLICATION_JSON));
+        MockHttpServletResponse target = new MockHttpServletResponse();
+
+        assertNull(client.streamProcessResource(CourtEndpoint.PROCESS_DETAIL, "123", 1, target));
+
+        server.verify();
+        assertEquals(body, contentOf(target));
+        assertEquals(200, target.getStatus());
+        Optional<ResponseEntity<String>> cached = responseCache.get(CourtEndpoint.PROCESS_DETAIL, DETAIL_URI);
+        assertTrue(cached.isPresent());
+        assertEquals(body, cached.get().getBody());
+        assertEquals(MediaType.APPLICATION_JSON, cached.get().getHeaders().getContentType());
+
+        // The next request is answered from the cache without touching the upstream
+        ResponseEntity<String> hit = client.streamProcessResource(CourtEndpoint.PROCESS_DETAIL, "123", 1,
+                new MockHttpServletResponse());
+        assertEquals(body, hit.getBody());
+    }
+
+    @Test
+    void bodyLargerThanTheTapIsStreamedButNotCached() {
+        ApiClient client = client(16);
+        String body = "{\"idProceso\":123,\"despacho\":\"JUZGADO 003 CIVIL\"}";
+        server.expect(requestTo(DETAIL_URI)).andRespond(withSuccess(body, MediaType.APPLICATION_JSON));
+        MockHttpServletResponse target = new MockHttpServletResponse();
+
+        assertNull(client.streamProcessResource(CourtEndpoint.PROCESS_DETAIL, "123", 1, target));
+
+        server.verify();
+        assertEquals(body, contentOf(target));
+        assertTrue(responseCache.get(CourtEndpoint.PROCESS_DETAIL, DETAIL_URI).isEmpty());
+    }
+
+    @Test
+    void clientDisconnectIsNotAnUpstreamFailure() {
+        ApiClient client = client(1024);
+        server.expect(requestTo(DETAIL_URI)).andRespond(withSuccess("{\"idProceso\":123}", MediaType.APPLICATION_JSON));
+
+        assertNull(client.streamProcessResource(CourtEndpoint.PROCESS_DETAIL, "123", 1, new DisconnectedResponse()));
+
+        server.verify();
+        // Partially written bodies are never cached
+        assertTrue(responseCache.get(CourtEndpoint.PROCESS_DETAIL, DETAIL_URI).isEmpty());
+        // With a one-call window, a recorded failure would have opened the breaker
+        CourtApiGuard.Permit permit = guard.tryAcquire(CourtEndpoint.PROCESS_DETAIL);
+        assertTrue(permit.isGranted());
+        permit.complete(ResponseEntity.ok().build());
+    }
+
+    private ApiClient client(int tapBytes) {
+        return new ApiClient(restTemplate, BASE_URL, responseCache, guard,
+                new CourtPayloadExtractor(new ObjectMapper()), meterRegistry, new MockEnvironment(),
+                1, 1024, tapBytes);
+    }
+
+    private static String contentOf(MockHttpServletResponse response) {
+        try {
+            return response.getContentAsString();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    // A client that hung up: every write fails like a broken pipe
+    private static final class DisconnectedResponse extends MockHttpServletResponse {
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return new ServletOutputStream() {
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                }
+
+                @Override
+                public void write(int b) throws IOException {
+                    throw new IOException("Broken pipe");
+                }
+            };
+        }
+    }
+}
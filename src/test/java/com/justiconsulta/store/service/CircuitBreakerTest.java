@@ -0,0 +1,137 @@
+package com.justiconsulta.store.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private static final long NEVER = Long.MAX_VALUE / 2;
+
+    @Test
+    void staysClosedUntilMinimumCallsAreRecorded() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, NEVER);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onResult(false);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onResult(false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void opensOnlyWhenFailureRateReachesThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 4, 0.5, NEVER);
+        breaker.onResult(true);
+        breaker.onResult(true);
+        breaker.onResult(true);
+        breaker.onResult(false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+
+        // Window is now [false, true, true, false] once the oldest success rolls out
+        breaker.onResult(false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    void failureRateCountsOnlyTheLastWindowSizeCalls() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 4, 0.75, NEVER);
+        for (int i = 0; i < 6; i++) {
+            breaker.onResult(true);
+        }
+        breaker.onResult(false);
+        breaker.onResult(false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+
+        // 3 of the last 4 failed; counted since the start it would be 3 of 9
+        breaker.onResult(false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    void halfOpenAllowsASingleTrialThatClosesOnSuccess() {
+        CircuitBreaker breaker = openBreaker(0);
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onResult(true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquire());
+        // The window was reset, so a single failure does not reopen it
+        breaker.onResult(false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void staysOpenUntilOpenMillisHavePassed() {
+        CircuitBreaker breaker = openBreaker(NEVER);
+        assertFalse(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    void failedTrialReopens() {
+        CircuitBreaker breaker = openBreaker(0);
+        assertTrue(breaker.tryAcquire());
+        breaker.onResult(false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    void releaseTrialFreesTheHalfOpenSlotWithoutDecidingState() {
+        CircuitBreaker breaker = openBreaker(0);
+        assertTrue(breaker.tryAcquire());
+
+        breaker.releaseTrial();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void releaseTrialWhileClosedDoesNotTouchTheWindow() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 0.5, NEVER);
+        breaker.onResult(false);
+        breaker.releaseTrial();
+        breaker.releaseTrial();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+
+        breaker.onResult(true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    void tooManyRequestsFromTheCourtCountsAsAFailure() {
+        // Window of two calls, opens at 50% failures
+        CourtApiGuard guard = new CourtApiGuard(true, 2, 2, 0.5, NEVER,
+                100, 100, 10, 2, 50, 2_000, 0.7, 5, 4, 0, new SimpleMeterRegistry());
+
+        // A 404 is a valid answer, a 429 is not
+        guard.tryAcquire(CourtEndpoint.NUMERO_RADICACION).complete(ResponseEntity.notFound().build());
+        assertEquals(CircuitBreaker.State.CLOSED, guard.state(CourtEndpoint.NUMERO_RADICACION));
+        guard.tryAcquire(CourtEndpoint.NUMERO_RADICACION)
+                .complete(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build());
+
+        assertEquals(CircuitBreaker.State.OPEN, guard.state(CourtEndpoint.NUMERO_RADICACION));
+        assertFalse(guard.tryAcquire(CourtEndpoint.NUMERO_RADICACION).isGranted());
+    }
+
+    private static CircuitBreaker openBreaker(long openMillis) {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 0.5, openMillis);
+        breaker.onResult(false);
+        breaker.onResult(false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        return breaker;
+    }
+}
@@ -0,0 +1,131 @@
+package com.justiconsulta.store.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.justiconsulta.store.service.CourtPayloadExtractor.Extracted;
+import com.justiconsulta.store.service.CourtPayloadExtractor.Query;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CourtPayloadExtractorTest {
+
+    private static final String NUMERO_RADICACION = """
+            {"tipoConsulta":"NumeroRadicacion",
+             "procesos":[
+               {"idProceso":128736452,"llaveProceso":"05001310300120230012300",
+                "fechaUltimaActuacion":"2024-09-18T00:00:00","despacho":"JUZGADO 001 CIVIL DEL CIRCUITO",
+                "sujetosProcesales":"Demandante: A | Demandado: B"},
+               {"idProceso":999,"despacho":"OTRO"}
+             ],
+             "parametros":{"numero":"05001310300120230012300"},
+             "paginacion":{"cantidadRegistros":2}}
+            """;
+
+    private final CourtPayloadExtractor extractor = new CourtPayloadExtractor(new ObjectMapper());
+
+    @Test
+    void extractsScalarsByPathFromTheFirstArrayElementOnly() {
+        Extracted fields = extractor.extract(NUMERO_RADICACION, Query.of(
+                CourtPayloadExtractor.FIRST_PROCESS_ID,
+                CourtPayloadExtractor.FIRST_PROCESS_DESPACHO,
+                "paginacion.cantidadRegistros"));
+
+        assertEquals(Optional.of("128736452"), fields.get(CourtPayloadExtractor.FIRST_PROCESS_ID));
+        assertEquals(Optional.of("JUZGADO 001 CIVIL DEL CIRCUITO"), fields.get(CourtPayloadExtractor.FIRST_PROCESS_DESPACHO));
+        assertEquals(Optional.of("2"), fields.get("paginacion.cantidadRegistros"));
+        assertFalse(fields.isMalformed());
+    }
+
+    @Test
+    void missingNullAndNonScalarValuesAreAbsent() {
+        String body = "{\"a\":null,\"b\":{\"c\":1},\"d\":[1,2]}";
+        Extracted fields = extractor.extract(body, Query.of("a", "b", "d", "missing", "b.c"));
+        assertTrue(fields.get("a").isEmpty());
+        assertTrue(fields.get("b").isEmpty());
+        assertTrue(fields.get("d").isEmpty());
+        assertTrue(fields.get("missing").isEmpty());
+        assertEquals(Optional.of("1"), fields.get("b.c"));
+    }
+
+    @Test
+    void emptyOrBlankBodyYieldsNothing() {
+        assertTrue(extractor.extract("", "idProceso").isEmpty());
+        assertTrue(extractor.extract(null, "idProceso").isEmpty());
+        assertTrue(extractor.extract("[]", "[0].idProceso").isEmpty());
+    }
+
+    @Test
+    void malformedBodyKeepsWhatWasReadBeforeTheError() {
+        Extracted fields = extractor.extract("{\"a\":\"x\",\"b\":", Query.of("a", "b"));
+        assertEquals(Optional.of("x"), fields.get("a"));
+        assertTrue(fields.isMalformed());
+    }
+
+    @Test
+    void stopsReadingOnceEveryFieldIsResolved() {
+        // Everything after the requested field is cut off; it is never read, so it is not malformed
+        String truncated = "{\"procesos\":[{\"idProceso\":42,\"despacho\":\"J";
+        Extracted fields = extractor.extract(truncated, Query.of(CourtPayloadExtractor.FIRST_PROCESS_ID));
+        assertEquals(Optional.of("42"), fields.get(CourtPayloadExtractor.FIRST_PROCESS_ID));
+        assertFalse(fields.isMalformed());
+    }
+
+    @Test
+    void fallbackPathsDoNotStopTheWalkBeforeThePreferredPath() {
+        String truncated = "{\"ultimaFecha\":\"2024-01-01\",\"fecha\":\"2024-09-18\",\"resto\":\"";
+        Query query = Query.ofFields(new String[]{"fecha", "ultimaFecha"});
+
+        Extracted fields = extractor.extract(truncated, query);
+        assertEquals(Optional.of("2024-09-18"), fields.get("fecha"));
+        assertEquals(Optional.of("2024-01-01"), fields.get("ultimaFecha"));
+        assertFalse(fields.isMalformed());
+
+        // Without the preferred path the walk reads to the end
+        Extracted fallbackOnly = extractor.extract("{\"ultimaFecha\":\"2024-01-01\",\"resto\":\"", query);
+        assertEquals(Optional.of("2024-01-01"), fallbackOnly.get("ultimaFecha"));
+        assertTrue(fallbackOnly.isMalformed());
+    }
+
+    @Test
+    void blankPreferredValueDoesNotResolveTheField() {
+        String truncated = "{\"fecha\":\"\",\"ultimaFecha\":\"2024-01-01\",\"resto\":\"";
+        Extracted fields = extractor.extract(truncated, Query.ofFields(new String[]{"fecha", "ultimaFecha"}));
+        assertEquals(Optional.of("2024-01-01"), fields.get("ultimaFecha"));
+        assertTrue(fields.isMalformed());
+    }
+
+    @Test
+    void rejectsInvalidQueries() {
+        assertThrows(IllegalArgumentException.class, () -> Query.of("procesos[1].idProceso"));
+        assertThrows(IllegalArgumentException.class, () -> Query.of("a[0][0]"));
+        assertThrows(IllegalArgumentException.class, () -> Query.ofFields(new String[]{"a"}, new String[]{"b", "a"}));
+    }
+
+    @Test
+    void extractIdProcesoPrefersNamedCandidatesInOrder() {
+        assertEquals(Optional.of("7"), extractor.extractIdProceso("{\"id\":8,\"idProceso\":7}"));
+        assertEquals(Optional.of("8"), extractor.extractIdProceso("{\"idProceso\":\" \",\"id\":8}"));
+        assertEquals(Optional.of("5"), extractor.extractIdProceso("[{\"id_proceso\":5}]"));
+    }
+
+    @Test
+    void extractIdProcesoFallsBackToShortNumericRootScalar() {
+        assertEquals(Optional.of("123456"), extractor.extractIdProceso("{\"nombre\":\"x\",\"llave\":\"12\",\"codigo\":\"123456\"}"));
+        assertTrue(extractor.extractIdProceso("{\"llave\":\"05001310300120230012300\"}").isEmpty());
+        // A candidate that is present but blank disables the root-scalar fallback
+        assertTrue(extractor.extractIdProceso("{\"id\":\"\",\"codigo\":\"123456\"}").isEmpty());
+    }
+
+    @Test
+    void withRootScalarsCollectsOnlyUnrequestedRootValues() {
+        Extracted fields = extractor.extract("{\"a\":1,\"b\":\"two\",\"c\":{\"d\":3},\"e\":true}", Query.withRootScalars("a"));
+        assertEquals(Optional.of("1"), fields.get("a"));
+        assertEquals(List.of("two", "true"), fields.rootScalars());
+    }
+}
@@ -0,0 +1,90 @@
+package com.justiconsulta.store.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CourtProcessSnapshotTest {
+
+    private static final String NUMERO_RADICACION = """
+            {"tipoConsulta":"NumeroRadicacion",
+             "procesos":[{"idProceso":128736452,"idConexion":263,"llaveProceso":"05001310300320190012300",
+               "fechaProceso":"2019-03-12T00:00:00","fechaUltimaActuacion":"2024-09-18T00:00:00",
+               "despacho":"JUZGADO 003 CIVIL DEL CIRCUITO DE MEDELLÍN ","departamento":"ANTIOQUIA",
+               "sujetosProcesales":"Demandante: BANCO DE EJEMPLO S.A. | Demandado: PERSONA DE PRUEBA UNO",
+               "esPrivado":false,"cantFilas":-1}],
+             "parametros":{"numero":"05001310300320190012300"},
+             "paginacion":{"cantidadRegistros":1,"registrosPagina":20,"cantidadPaginas":1,"pagina":1}}
+            """;
+
+    private final CourtPayloadExtractor extractor = new CourtPayloadExtractor(new ObjectMapper());
+
+    @Test
+    void parsesNumeroRadicacionResponse() {
+        CourtProcessSnapshot snapshot = CourtProcessSnapshot.parse(extractor, NUMERO_RADICACION);
+
+        assertTrue(snapshot.found());
+        assertEquals("128736452", snapshot.idProceso());
+        // Dates without offset are Colombian local time
+        assertEquals(OffsetDateTime.parse("2024-09-18T00:00:00-05:00"), snapshot.lastActionDate());
+        assertEquals("JUZGADO 003 CIVIL DEL CIRCUITO DE MEDELLÍN ", snapshot.despacho());
+    }
+
+    @Test
+    void firstProcessFieldsWinOverRootFallbacks() {
+        String body = """
+                {"despacho":"RAIZ","fechaUltimaActuacion":"2020-01-01T00:00:00",
+                 "procesos":[{"idProceso":7,"despacho":"PRIMERO","fechaUltimaActuacion":"2024-09-18T00:00:00"}]}
+                """;
+        CourtProcessSnapshot snapshot = CourtProcessSnapshot.parse(extractor, body);
+        assertEquals("7", snapshot.idProceso());
+        assertEquals("PRIMERO", snapshot.despacho());
+        assertEquals(OffsetDateTime.parse("2024-09-18T00:00:00-05:00"), snapshot.lastActionDate());
+    }
+
+    @Test
+    void fallsBackToAlternativeFieldsInPreferenceOrder() {
+        String body = """
+                {"ultimaActuacion":{"fechaActuacion":"2023-05-02"},"lastActionDate":"2024-02-10T08:30:00",
+                 "despacho":"RAIZ","procesos":[{"idProceso":7}]}
+                """;
+        CourtProcessSnapshot snapshot = CourtProcessSnapshot.parse(extractor, body);
+        assertEquals(OffsetDateTime.parse("2024-02-10T08:30:00-05:00"), snapshot.lastActionDate());
+        assertEquals("RAIZ", snapshot.despacho());
+    }
+
+    @Test
+    void unparseableDateFallsThroughToTheNextCandidate() {
+        String body = "{\"procesos\":[{\"fechaUltimaActuacion\":\"sin fecha\"}],\"ultimaActuacionFecha\":\"2024-03-01\"}";
+        CourtProcessSnapshot snapshot = CourtProcessSnapshot.parse(extractor, body);
+        assertEquals(OffsetDateTime.parse("2024-03-01T00:00:00-05:00"), snapshot.lastActionDate());
+    }
+
+    @Test
+    void missingFieldsAreEmptyButTheSnapshotIsStillFound() {
+        CourtProcessSnapshot snapshot = CourtProcessSnapshot.parse(extractor, "{\"procesos\":[{\"idProceso\":\" \"}]}");
+        assertTrue(snapshot.found());
+        assertNull(snapshot.idProceso());
+        assertEquals(Optional.empty(), snapshot.lastActionDateIfPresent());
+        assertEquals(Optional.empty(), snapshot.despachoIfPresent());
+    }
+
+    @Test
+    void notFoundAndUnavailableAreDistinct() {
+        CourtProcessSnapshot notFound = CourtProcessSnapshot.notFound();
+        assertFalse(notFound.found());
+        assertFalse(notFound.isUnavailable());
+
+        CourtProcessSnapshot unavailable = CourtProcessSnapshot.unavailable();
+        assertFalse(unavailable.found());
+        assertTrue(unavailable.isUnavailable());
+        assertTrue(unavailable.idProcesoIfPresent().isEmpty());
+    }
+}
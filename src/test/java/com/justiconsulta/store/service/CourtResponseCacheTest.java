@@ -0,0 +1,220 @@
+package com.justiconsulta.store.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CourtResponseCacheTest {
+
+    private static final String URI_A = "https://court.test/Procesos/Consulta/NumeroRadicacion?numero=1";
+    private static final String URI_B = "https://court.test/Procesos/Consulta/NumeroRadicacion?numero=2";
+    private static final String URI_C = "https://court.test/Procesos/Consulta/NumeroRadicacion?numero=3";
+
+    private MutableClock clock;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+    }
+
+    @Test
+    void servesFreshEntryUntilTtlExpires() {
+        CourtResponseCache cache = cache(10, 1 << 20);
+        cache.put(CourtEndpoint.NUMERO_RADICACION, URI_A, ResponseEntity.ok("{\"procesos\":[]}"));
+
+        clock.advance(Duration.ofSeconds(59));
+        assertEquals("{\"procesos\":[]}", cache.get(CourtEndpoint.NUMERO_RADICACION, URI_A).orElseThrow().getBody());
+
+        clock.advance(Duration.ofSeconds(1));
+        assertTrue(cache.get(CourtEndpoint.NUMERO_RADICACION, URI_A).isEmpty());
+    }
+
+    @Test
+    void addsAgeHeaderFromStorageTime() {
+        CourtResponseCache cache = cache(10, 1 << 20);
+        cache.put(CourtEndpoint.NUMERO_RADICACION, URI_A, ResponseEntity.ok("body"));
+
+        clock.advance(Duration.ofSeconds(42));
+        ResponseEntity<String> cached = cache.get(CourtEndpoint.NUMERO_RADICACION, URI_A).orElseThrow();
+        assertEquals("42", cached.getHeaders().getFirst(HttpHeaders.AGE));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenEntryLimitIsExceeded() {
+        CourtResponseCache cache = cache(2, 1 << 20);
+        cache.put(CourtEndpoint.NUMERO_RADICACION, URI_A, ResponseEntity.ok("a"));
+        cache.put(CourtEndpoint.NUMERO_RADICACION, URI_B, ResponseEntity.ok("b"));
+        // Reading A makes B the least recently used entry
+        assertTrue(cache.get(CourtEndpoint.NUMERO_RADICACION, URI_A).isPresent());
+
+        cache.put(CourtEndpoint.NUMERO_RADICACION, URI_C, ResponseEntity.ok("c"));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictionCount());
+        assertTrue(cache.get(CourtEndpoint.NUMERO_RADICACION, URI_A).isPresent());
+        assertTrue(cache.get(CourtEndpoint.NUMERO_RADICACION, URI_B).isEmpty());
+        assertTrue(cache.get(CourtEndpoint.NUMERO_RADICACION, URI_C).isPresent());
+    }
+
+    @Test
+    void evictsByByteBudgetAndSkipsOversizedBodies() {
+        // Each 10-char body weighs 10 * 2 + 64 = 84 bytes
+        CourtResponseCache cache = cache(10, 200);
+        cache.put(CourtEndpoint.NUMERO_RADICACION, URI_A, ResponseEntity.ok("aaaaaaaaaa"));
+        cache.put(CourtEndpoint.NUMERO_RADICACION, URI_B, ResponseEntity.ok("bbbbbbbbbb"));
+        cache.put(CourtEndpoint.NUMERO_RADICACION, URI_C, ResponseEntity.ok("cccccccccc"));
+
+        assertEquals(2, cache.size());
+        assertEquals(168, cache.bytes());
+        assertTrue(cache.get(CourtEndpoint.NUMERO_RADICACION, URI_A).isEmpty());
+
+        cache.put(CourtEndpoint.NUMERO_RADICACION, URI_A, ResponseEntity.ok("x".repeat(100)));
+        assertTrue(cache.get(CourtEndpoint.NUMERO_RADICACION, URI_A).isEmpty());
+        assertEquals(168, cache.bytes());
+    }
+
+    @Test
+    void replacingAnEntryKeepsByteAccountingExact() {
+        CourtResponseCache cache = cache(10, 1 << 20);
+        cache.put(CourtEndpoint.NUMERO_RADICACION, URI_A, ResponseEntity.ok("aaaaaaaaaa"));
+        cache.put(CourtEndpoint.NUMERO_RADICACION, URI_A, ResponseEntity.ok("a"));
+
+        assertEquals(1, cache.size());
+        assertEquals(66, cache.bytes());
+    }
+
+    @Test
+    void onlyCachesSuccessfulNonBlankResponsesOfCacheableEndpoints() {
+        CourtResponseCache cache = cache(10, 1 << 20);
+        cache.put(CourtEndpoint.NUMERO_RADICACION, URI_A, ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("down"));
+        cache.put(CourtEndpoint.NUMERO_RADICACION, URI_B, ResponseEntity.ok("  "));
+        cache.put(CourtEndpoint.OTHER, URI_C, ResponseEntity.ok("other"));
+
+        assertEquals(0, cache.size());
+        assertTrue(cache.get(CourtEndpoint.OTHER, URI_C).isEmpty());
+    }
+
+    @Test
+    void disabledCacheStoresNothing() {
+        CourtResponseCache cache = new CourtResponseCache(false, 10, 1 << 20, 60, 300, 300, 300, 120, 600, 3600,
+                new SimpleMeterRegistry());
+        cache.put(CourtEndpoint.NUMERO_RADICACION, URI_A, ResponseEntity.ok("a"));
+
+        assertFalse(cache.lookup(CourtEndpoint.NUMERO_RADICACION, URI_A).isPresent());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void lookupReportsStaleWithinStaleWhileRevalidateWindow() {
+        CourtResponseCache cache = cache(10, 1 << 20);
+        cache.put(CourtEndpoint.NUMERO_RADICACION, URI_A, ResponseEntity.ok("old"));
+
+        clock.advance(Duration.ofSeconds(60 + 599));
+        CourtResponseCache.Lookup lookup = cache.lookup(CourtEndpoint.NUMERO_RADICACION, URI_A).orElseThrow();
+        assertEquals(CourtResponseCache.Freshness.STALE, lookup.freshness());
+        assertEquals("old", lookup.response().getBody());
+        assertEquals("659", lookup.response().getHeaders().getFirst(HttpHeaders.AGE));
+        assertEquals(1, cache.staleCount());
+        // get() never hands out stale data
+        assertTrue(cache.get(CourtEndpoint.NUMERO_RADICACION, URI_A).isEmpty());
+    }
+
+    @Test
+    void lookupReportsStaleIfErrorAfterRevalidateWindow() {
+        CourtResponseCache cache = cache(10, 1 << 20);
+        cache.put(CourtEndpoint.NUMERO_RADICACION, URI_A, ResponseEntity.ok("old"));
+
+        clock.advance(Duration.ofSeconds(60 + 600));
+        assertEquals(CourtResponseCache.Freshness.STALE_IF_ERROR,
+                cache.lookup(CourtEndpoint.NUMERO_RADICACION, URI_A).orElseThrow().freshness());
+
+        clock.advance(Duration.ofSeconds(3600 - 600 - 1));
+        assertEquals(CourtResponseCache.Freshness.STALE_IF_ERROR,
+                cache.lookup(CourtEndpoint.NUMERO_RADICACION, URI_A).orElseThrow().freshness());
+    }
+
+    @Test
+    void dropsEntryOnceStaleIfErrorWindowHasPassed() {
+        CourtResponseCache cache = cache(10, 1 << 20);
+        cache.put(CourtEndpoint.NUMERO_RADICACION, URI_A, ResponseEntity.ok("old"));
+
+        clock.advance(Duration.ofSeconds(60 + 3600));
+        assertTrue(cache.lookup(CourtEndpoint.NUMERO_RADICACION, URI_A).isEmpty());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    void refreshedEntryIsFreshAgain() {
+        CourtResponseCache cache = cache(10, 1 << 20);
+        cache.put(CourtEndpoint.NUMERO_RADICACION, URI_A, ResponseEntity.ok("old"));
+        clock.advance(Duration.ofSeconds(120));
+        cache.put(CourtEndpoint.NUMERO_RADICACION, URI_A, ResponseEntity.ok("new"));
+
+        CourtResponseCache.Lookup lookup = cache.lookup(CourtEndpoint.NUMERO_RADICACION, URI_A).orElseThrow();
+        assertEquals(CourtResponseCache.Freshness.FRESH, lookup.freshness());
+        assertEquals("new", lookup.response().getBody());
+        assertEquals("0", lookup.response().getHeaders().getFirst(HttpHeaders.AGE));
+    }
+
+    @Test
+    void replaceOnlyRefreshesEntriesAlreadyCached() {
+        CourtResponseCache cache = cache(10, 1 << 20);
+        cache.replace(CourtEndpoint.NUMERO_RADICACION, URI_A, ResponseEntity.ok("new"));
+        assertEquals(0, cache.size());
+
+        cache.put(CourtEndpoint.NUMERO_RADICACION, URI_B, ResponseEntity.ok("old"));
+        clock.advance(Duration.ofSeconds(120));
+        cache.replace(CourtEndpoint.NUMERO_RADICACION, URI_B, ResponseEntity.ok("new"));
+
+        CourtResponseCache.Lookup lookup = cache.lookup(CourtEndpoint.NUMERO_RADICACION, URI_B).orElseThrow();
+        assertEquals(CourtResponseCache.Freshness.FRESH, lookup.freshness());
+        assertEquals("new", lookup.response().getBody());
+        assertEquals(1, cache.size());
+        assertEquals(70, cache.bytes());
+    }
+
+    // numero-radicacion: TTL 60 s, stale-while-revalidate 600 s, stale-if-error 3600 s
+    private CourtResponseCache cache(int maxEntries, long maxBytes) {
+        CourtResponseCache cache = new CourtResponseCache(true, maxEntries, maxBytes, 60, 300, 300, 300, 120, 600, 3600,
+                new SimpleMeterRegistry());
+        cache.setClock(clock);
+        return cache;
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
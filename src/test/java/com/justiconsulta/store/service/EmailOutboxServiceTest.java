@@ -0,0 +1,180 @@
+package com.justiconsulta.store.service;
+
+import com.justiconsulta.store.model.EmailOutbox;
+import com.justiconsulta.store.model.EmailOutbox.Status;
+import com.justiconsulta.store.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmailOutboxServiceTest {
+
+    private static final String TO = "user@test.co";
+
+    private final EmailOutboxRepository repository = mock(EmailOutboxRepository.class);
+    private final JavaMailSender mailSender = mock(JavaMailSender.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // A mock sender takes the transport's send(MimeMessage...) fallback, one connection, no throttling
+    private final BatchMailTransport mailTransport = new BatchMailTransport(mailSender, meterRegistry, 1, 90, 60, 0);
+    // backoff 30s doubling up to 600s, 3 attempts, 30 minute dedupe window
+    private final EmailOutboxService service = new EmailOutboxService(repository, mailSender, mailTransport, Runnable::run,
+            meterRegistry, "noreply@test.co", "JustiConsulta", 20, 3, 30, 600, 300, 30);
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void backoffDoublesFromTheBaseAndStopsAtTheMax() {
+        assertEquals(Duration.ofSeconds(30), service.backoff(1));
+        assertEquals(Duration.ofSeconds(60), service.backoff(2));
+        assertEquals(Duration.ofSeconds(120), service.backoff(3));
+        assertEquals(Duration.ofSeconds(480), service.backoff(5));
+        assertEquals(Duration.ofSeconds(600), service.backoff(6));
+        // The shift is capped, so a large attempt count does not overflow
+        assertEquals(Duration.ofSeconds(600), service.backoff(200));
+    }
+
+    @Test
+    void duplicateInsideTheWindowIsNotEnqueued() {
+        when(repository.existsByDedupeKeyAndCreatedAtAfter(anyString(), any())).thenReturn(true);
+
+        OffsetDateTime before = OffsetDateTime.now();
+        assertFalse(service.enqueue(TO, "Actuación nueva", "<p>hola</p>"));
+
+        ArgumentCaptor<OffsetDateTime> since = ArgumentCaptor.forClass(OffsetDateTime.class);
+        verify(repository).existsByDedupeKeyAndCreatedAtAfter(anyString(), since.capture());
+        // Looks back exactly one dedupe window
+        Duration window = Duration.between(since.getValue(), before);
+        assertTrue(window.compareTo(Duration.ofMinutes(30).minusSeconds(1)) >= 0
+                && window.compareTo(Duration.ofMinutes(30)) <= 0, window.toString());
+        verify(repository, never()).save(any());
+        assertEquals(1.0, meterRegistry.counter("mail.outbox.deduplicated").count());
+    }
+
+    @Test
+    void dedupeKeyIgnoresRecipientCaseButNotContent() {
+        EmailOutbox first = enqueueAndCapture(TO, "Asunto", "<p>hola</p>");
+        assertEquals(first.getDedupeKey(), enqueueAndCapture("  USER@test.co ", "Asunto", "<p>hola</p>").getDedupeKey());
+        assertNotEquals(first.getDedupeKey(), enqueueAndCapture(TO, "Asunto", "<p>chao</p>").getDedupeKey());
+        assertNotEquals(first.getDedupeKey(), enqueueAndCapture(TO, "Otro asunto", "<p>hola</p>").getDedupeKey());
+
+        assertEquals(Status.PENDING, first.getStatus());
+        assertEquals(0, first.getAttempts());
+        assertEquals(64, first.getDedupeKey().length());
+    }
+
+    @Test
+    void sendsOnlyTheRowsItClaims() {
+        UUID mine = UUID.randomUUID();
+        UUID taken = UUID.randomUUID();
+        when(repository.findDueIds(any(), any())).thenReturn(List.of(mine, taken));
+        when(repository.claim(eq(mine), any())).thenReturn(1);
+        when(repository.claim(eq(taken), any())).thenReturn(0);
+        when(repository.findAllById(List.of(mine))).thenReturn(List.of(row(mine, 0)));
+        when(mailSender.createMimeMessage()).thenReturn(new MimeMessage((Session) null));
+
+        OffsetDateTime before = OffsetDateTime.now();
+        service.poll();
+
+        verify(repository, timeout(5_000)).markSent(eq(List.of(mine)), any());
+        verify(repository).releaseExpiredLeases(any());
+        ArgumentCaptor<OffsetDateTime> leaseUntil = ArgumentCaptor.forClass(OffsetDateTime.class);
+        verify(repository).claim(eq(mine), leaseUntil.capture());
+        assertFalse(leaseUntil.getValue().isBefore(before.plusSeconds(300)));
+        verify(mailSender).send(any(MimeMessage[].class));
+    }
+
+    @Test
+    void failedSendIsRescheduledWithBackoff() throws InterruptedException {
+        UUID id = UUID.randomUUID();
+        failingDelivery(id, 1);
+
+        OffsetDateTime before = OffsetDateTime.now();
+        service.poll();
+
+        ArgumentCaptor<OffsetDateTime> next = ArgumentCaptor.forClass(OffsetDateTime.class);
+        verify(repository, timeout(5_000)).markAttemptFailed(eq(id), eq(Status.PENDING), next.capture(), eq("smtp down"));
+        // Second attempt failed: waits base * 2
+        assertFalse(next.getValue().isBefore(before.plusSeconds(60)));
+        assertTrue(next.getValue().isBefore(before.plusSeconds(61 + 5)));
+        waitUntil(() -> meterRegistry.counter("mail.outbox.retried").count() == 1.0);
+    }
+
+    @Test
+    void lastAttemptMarksTheRowFailed() throws InterruptedException {
+        UUID id = UUID.randomUUID();
+        failingDelivery(id, 2);
+
+        service.poll();
+
+        verify(repository, timeout(5_000)).markAttemptFailed(eq(id), eq(Status.FAILED), any(), eq("smtp down"));
+        waitUntil(() -> meterRegistry.counter("mail.outbox.failed").count() == 1.0);
+        assertEquals(0.0, meterRegistry.counter("mail.outbox.retried").count());
+    }
+
+    private void failingDelivery(UUID id, int previousAttempts) {
+        when(repository.findDueIds(any(), any())).thenReturn(List.of(id));
+        when(repository.claim(eq(id), any())).thenReturn(1);
+        when(repository.findAllById(List.of(id))).thenReturn(List.of(row(id, previousAttempts)));
+        when(mailSender.createMimeMessage()).thenReturn(new MimeMessage((Session) null));
+        doThrow(new MailSendException("smtp down")).when(mailSender).send(any(MimeMessage[].class));
+    }
+
+    private EmailOutbox enqueueAndCapture(String to, String subject, String body) {
+        clearInvocations(repository);
+        assertTrue(service.enqueue(to, subject, body));
+        ArgumentCaptor<EmailOutbox> saved = ArgumentCaptor.forClass(EmailOutbox.class);
+        verify(repository).save(saved.capture());
+        return saved.getValue();
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not reached within 5s");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static EmailOutbox row(UUID id, int attempts) {
+        EmailOutbox row = new EmailOutbox();
+        row.setId(id);
+        row.setRecipient(TO);
+        row.setSubject("Actuación nueva");
+        row.setHtmlBody("<p>hola</p>");
+        row.setStatus(Status.SENDING);
+        row.setAttempts(attempts);
+        return row;
+    }
+}
@@ -0,0 +1,102 @@
+package com.justiconsulta.store.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailTemplateServiceTest {
+
+    private static final String APP_URL = "https://justiconsulta.test";
+    private static final String USER = "Ana Pérez";
+    private static final String RADICADO = "05001310300320230012300";
+
+    private final EmailTemplateService templates = new EmailTemplateService(APP_URL);
+    private final FormattedEmailTemplates formatted = new FormattedEmailTemplates();
+
+    @Test
+    void welcomeMatchesTheFormattedTemplate() {
+        assertEquals(legacy(formatted.getWelcomeEmailTemplate(USER, "ana@test.co")),
+                templates.getWelcomeEmailTemplate(USER, "ana@test.co"));
+    }
+
+    @Test
+    void newActuationMatchesTheFormattedTemplate() {
+        assertEquals(legacy(formatted.getNewActuationEmailTemplate(USER, RADICADO, "Auto admite demanda", "2026-01-15")),
+                templates.getNewActuationEmailTemplate(USER, RADICADO, "Auto admite demanda", "2026-01-15"));
+    }
+
+    @Test
+    void actuationReminderMatchesTheFormattedTemplate() {
+        assertEquals(legacy(formatted.getActuationReminderEmailTemplate(USER, 12)),
+                templates.getActuationReminderEmailTemplate(USER, 12));
+    }
+
+    @Test
+    void passwordResetMatchesTheFormattedTemplate() {
+        String link = APP_URL + "/reset-password?token=abc%20def";
+        assertEquals(legacy(formatted.getPasswordResetEmailTemplate(USER, link)),
+                templates.getPasswordResetEmailTemplate(USER, link));
+    }
+
+    @Test
+    void processDeletedMatchesTheFormattedTemplate() {
+        assertEquals(legacy(formatted.getProcessDeletedEmailTemplate(USER, RADICADO)),
+                templates.getProcessDeletedEmailTemplate(USER, RADICADO));
+    }
+
+    @Test
+    void multipleActuationsMatchesTheFormattedTemplate() {
+        String items = "<ul><li>Auto 1</li><li>Fijación en lista 100%</li></ul>";
+        assertEquals(legacy(formatted.getMultipleActuationsEmailTemplate(USER, items)),
+                templates.getMultipleActuationsEmailTemplate(USER, items));
+    }
+
+    @Test
+    void processAssociatedMatchesTheFormattedTemplate() {
+        assertEquals(legacy(formatted.getProcessAssociatedEmailTemplate(USER, RADICADO, "JUZGADO 003 CIVIL")),
+                templates.getProcessAssociatedEmailTemplate(USER, RADICADO, "JUZGADO 003 CIVIL"));
+        assertEquals(legacy(formatted.getProcessAssociatedEmailTemplate(USER, RADICADO, null)),
+                templates.getProcessAssociatedEmailTemplate(USER, RADICADO, null));
+    }
+
+    @Test
+    void cssPercentagesAreNoLongerEscaped() {
+        String html = templates.getWelcomeEmailTemplate(USER, "ana@test.co");
+        assertTrue(html.contains("var(--navy) 0%, #1a2438 50%"));
+        assertFalse(html.contains("%%"));
+        assertFalse(html.contains("{{"));
+        assertFalse(html.contains("${APP_URL}"));
+    }
+
+    @Test
+    void compileSplitsRepeatedPlaceholdersAndBakesInConstants() {
+        EmailTemplateService.CompiledTemplate template = EmailTemplateService.compile(
+                "<p>{{a}}-{{b}}-{{a}}</p><a href=\"${APP_URL}/x\">{{b}}</a>", "Título", APP_URL, "a", "b");
+
+        String html = template.render("1", "2");
+
+        assertTrue(html.contains("<title>Título</title>"));
+        assertTrue(html.contains("<p>1-2-1</p><a href=\"" + APP_URL + "/x\">2</a>"));
+        // Values are copied as-is, never scanned for markers
+        assertTrue(template.render("{{b}}", "%s").contains("<p>{{b}}-%s-{{b}}</p>"));
+        assertTrue(template.render(null, "2").contains("<p>null-2-null</p>"));
+    }
+
+    @Test
+    void compileRejectsMalformedTemplates() {
+        assertThrows(IllegalStateException.class,
+                () -> EmailTemplateService.compile("<p>{{a}}</p>", "T", APP_URL, "b"));
+        assertThrows(IllegalStateException.class,
+                () -> EmailTemplateService.compile("<p>{{a</p>", "T", APP_URL, "a"));
+        EmailTemplateService.CompiledTemplate template = EmailTemplateService.compile("<p>{{a}}</p>", "T", APP_URL, "a");
+        assertThrows(IllegalArgumentException.class, () -> template.render("1", "2"));
+    }
+
+    // Before, EmailServiceImpl replaced ${APP_URL} on every formatted email
+    private static String legacy(String html) {
+        return html.replace("${APP_URL}", APP_URL);
+    }
+}
@@ -0,0 +1,93 @@
+package com.justiconsulta.store.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.justiconsulta.store.model.HistoryPayload;
+import com.justiconsulta.store.repository.HistoryPayloadRepository;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HistoryPayloadStoreTest {
+
+    private final HistoryPayloadRepository repository = mock(HistoryPayloadRepository.class);
+    private final HistoryPayloadStore store = new HistoryPayloadStore(repository, new ObjectMapper());
+
+    @Test
+    void preparedContentIsTheGzippedNormalizedBodyAndHashIsItsSha256() throws Exception {
+        HistoryPayloadStore.Prepared prepared = store.prepare("{ \"idProceso\" : 128736452,\n \"despacho\": \"JUZGADO 003\" }");
+
+        String normalized = "{\"idProceso\":128736452,\"despacho\":\"JUZGADO 003\"}";
+        assertEquals(normalized, gunzip(prepared.content()));
+        assertEquals(normalized.length(), prepared.originalLength());
+        assertEquals(sha256(normalized), prepared.hash());
+    }
+
+    @Test
+    void formattingDifferencesShareOneHash() {
+        String compact = store.prepare("{\"a\":1,\"b\":[1,2]}").hash();
+        assertEquals(compact, store.prepare("  {\n  \"a\": 1,\n  \"b\": [1, 2]\n}\n").hash());
+        assertNotEquals(compact, store.prepare("{\"a\":1,\"b\":[2,1]}").hash());
+    }
+
+    @Test
+    void plainTextIsTrimmedAndKeptAsIs() throws Exception {
+        HistoryPayloadStore.Prepared prepared = store.prepare("  Proceso no encontrado.\n");
+        assertEquals("Proceso no encontrado.", gunzip(prepared.content()));
+
+        // Looks like JSON but is not: stored trimmed, not rejected
+        assertEquals("{no es json", gunzip(store.prepare(" {no es json ").content()));
+    }
+
+    @Test
+    void loadRoundTripsThroughTheRepository() {
+        String body = "{\"procesos\":[{\"idProceso\":1,\"despacho\":\"JUZGADO DE MEDELLÍN\"}]}";
+        HistoryPayloadStore.Prepared prepared = store.prepare(body);
+        when(repository.findById(prepared.hash()))
+                .thenReturn(Optional.of(new HistoryPayload(prepared.hash(), prepared.content(), prepared.originalLength(), null)));
+
+        assertEquals(Optional.of(body), store.load(prepared.hash()));
+        assertTrue(store.load(null).isEmpty());
+    }
+
+    @Test
+    void loadAllQueriesDistinctHashesOnce() {
+        HistoryPayloadStore.Prepared a = store.prepare("{\"a\":1}");
+        HistoryPayloadStore.Prepared b = store.prepare("{\"b\":2}");
+        when(repository.findAllById(any())).thenReturn(List.of(
+                new HistoryPayload(a.hash(), a.content(), a.originalLength(), null),
+                new HistoryPayload(b.hash(), b.content(), b.originalLength(), null)));
+
+        Map<String, String> bodies = store.loadAll(Arrays.asList(a.hash(), null, b.hash(), a.hash()));
+
+        assertEquals(Map.of(a.hash(), "{\"a\":1}", b.hash(), "{\"b\":2}"), bodies);
+        verify(repository).findAllById(Set.of(a.hash(), b.hash()));
+    }
+
+    private static String gunzip(byte[] content) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String sha256(String value) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,211 @@
+package com.justiconsulta.store.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.justiconsulta.store.model.History;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistoryWriterTest {
+
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final OffsetDateTime DATE = OffsetDateTime.parse("2026-01-01T10:00:00-05:00");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RecordingJdbcTemplate jdbc = new RecordingJdbcTemplate();
+    private final HistoryPayloadStore payloadStore = new HistoryPayloadStore(null, new ObjectMapper());
+    private HistoryWriter writer;
+
+    @AfterEach
+    void tearDown() {
+        jdbc.release.countDown();
+        if (writer != null) writer.shutdown();
+    }
+
+    @Test
+    void writesOneMultiRowInsertPerBatch() throws InterruptedException {
+        writer = new HistoryWriter(jdbc, payloadStore, meterRegistry, 100, 2, 60_000, 5_000);
+        writer.start();
+        History first = history("1001");
+        History second = history("1002");
+        second.setId(null);
+
+        assertTrue(writer.enqueue(first));
+        assertTrue(writer.enqueue(second));
+        waitUntil(() -> jdbc.rowsWritten() == 2);
+
+        List<Statement> inserts = jdbc.historyInserts();
+        assertEquals(1, inserts.size());
+        Statement insert = inserts.get(0);
+        assertEquals("INSERT INTO history (id, legal_process_id, activity_series_id, date, result, result_hash, "
+                + "created_at, user_document_number) VALUES " + ROW + ", " + ROW, insert.sql());
+        assertEquals(16, insert.args().length);
+        String hash = payloadStore.prepare("{}").hash();
+        assertArrayEquals(new Object[]{first.getId(), "proc-1001", first.getActivitySeriesId(), DATE, null, hash, DATE, "1001"},
+                Arrays.copyOfRange(insert.args(), 0, 8));
+        // Rows without an id get one generated for the INSERT
+        assertNotNull(insert.args()[8]);
+        assertEquals("1002", insert.args()[15]);
+        assertEquals(2.0, meterRegistry.counter("history.writer.written").count());
+    }
+
+    @Test
+    void storesEachDistinctBodyOnceBeforeTheRows() throws InterruptedException {
+        writer = new HistoryWriter(jdbc, payloadStore, meterRegistry, 100, 3, 60_000, 5_000);
+        writer.start();
+        History a = history("1001");
+        a.setResult("{\"procesos\": [1]}");
+        History sameAsA = history("1002");
+        sameAsA.setResult("{\"procesos\":[1]}");
+        History b = history("1003");
+        b.setResult("{\"procesos\":[2]}");
+        writer.enqueue(a);
+        writer.enqueue(sameAsA);
+        writer.enqueue(b);
+        waitUntil(() -> jdbc.rowsWritten() == 3);
+
+        Statement payloads = jdbc.statements.get(0);
+        assertEquals("INSERT INTO history_payload (hash, content, original_length, created_at) VALUES "
+                + "(?, ?, ?, ?), (?, ?, ?, ?) ON CONFLICT (hash) DO NOTHING", payloads.sql());
+        assertEquals(payloadStore.prepare("{\"procesos\":[1]}").hash(), payloads.args()[0]);
+        assertEquals(payloadStore.prepare("{\"procesos\":[2]}").hash(), payloads.args()[4]);
+        // Formatting differences share one payload; the rows keep only the hash
+        assertEquals(a.getResultHash(), sameAsA.getResultHash());
+        assertNull(a.getResult());
+    }
+
+    @Test
+    void flushesAPartialBatchOnceTheIntervalHasPassed() throws InterruptedException {
+        writer = new HistoryWriter(jdbc, payloadStore, meterRegistry, 100, 50, 50, 5_000);
+        writer.start();
+        writer.enqueue(history("1001"));
+        writer.enqueue(history("1002"));
+        writer.enqueue(history("1003"));
+
+        waitUntil(() -> jdbc.rowsWritten() == 3);
+        assertEquals(1, jdbc.historyInserts().size());
+    }
+
+    @Test
+    void dropsAndCountsRowsWhenTheQueueIsFull() {
+        // Not started: nothing drains the queue
+        writer = new HistoryWriter(jdbc, payloadStore, meterRegistry, 2, 50, 50, 5_000);
+        assertTrue(writer.enqueue(history("1001")));
+        assertTrue(writer.enqueue(history("1002")));
+        assertFalse(writer.enqueue(history("1003")));
+
+        assertEquals(2, writer.pending());
+        assertEquals(2.0, meterRegistry.counter("history.writer.enqueued").count());
+        assertEquals(1.0, meterRegistry.counter("history.writer.dropped").count());
+    }
+
+    @Test
+    void countsFailedBatchesAndKeepsRunning() throws InterruptedException {
+        jdbc.failNext = true;
+        writer = new HistoryWriter(jdbc, payloadStore, meterRegistry, 100, 1, 50, 5_000);
+        writer.start();
+        writer.enqueue(history("1001"));
+        waitUntil(() -> meterRegistry.counter("history.writer.failed").count() == 1.0);
+
+        writer.enqueue(history("1002"));
+        waitUntil(() -> jdbc.rowsWritten() == 1);
+        assertEquals("1002", jdbc.historyInserts().get(0).args()[7]);
+    }
+
+    @Test
+    void shutdownWritesPendingRowsAndRejectsNewOnes() throws InterruptedException {
+        jdbc.release = new CountDownLatch(1);
+        writer = new HistoryWriter(jdbc, payloadStore, meterRegistry, 100, 1, 50, 5_000);
+        writer.start();
+        writer.enqueue(history("1001"));
+        // The worker is now stuck writing the first row while two more wait in the queue
+        waitUntil(() -> jdbc.blocked);
+        writer.enqueue(history("1002"));
+        writer.enqueue(history("1003"));
+
+        Thread shutdown = new Thread(writer::shutdown);
+        shutdown.start();
+        // Once shutdown() is waiting on the worker, running is already false
+        waitUntil(() -> shutdown.getState() == Thread.State.TIMED_WAITING);
+        assertFalse(writer.enqueue(history("late")));
+        jdbc.release.countDown();
+        shutdown.join(5_000);
+
+        assertEquals(3, jdbc.rowsWritten());
+        assertEquals(0, writer.pending());
+    }
+
+    private static History history(String documentNumber) {
+        History history = new History();
+        history.setId(UUID.randomUUID());
+        history.setLegalProcessId("proc-" + documentNumber);
+        history.setActivitySeriesId(UUID.randomUUID());
+        history.setDate(DATE);
+        history.setResult("{}");
+        history.setCreatedAt(DATE);
+        history.setUserDocumentNumber(documentNumber);
+        return history;
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not reached within 5s");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private record Statement(String sql, Object[] args) {
+    }
+
+    // Records each INSERT (payloads and rows) instead of talking to a database
+    private static final class RecordingJdbcTemplate extends JdbcTemplate {
+        private final List<Statement> statements = new CopyOnWriteArrayList<>();
+        private volatile CountDownLatch release = new CountDownLatch(0);
+        private volatile boolean blocked;
+        private volatile boolean failNext;
+
+        @Override
+        public int update(String sql, Object... args) {
+            if (failNext) {
+                failNext = false;
+                throw new IllegalStateException("connection refused");
+            }
+            blocked = true;
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            statements.add(new Statement(sql, args));
+            return 1;
+        }
+
+        List<Statement> historyInserts() {
+            return statements.stream().filter(s -> s.sql().startsWith("INSERT INTO history (")).toList();
+        }
+
+        int rowsWritten() {
+            return historyInserts().stream().mapToInt(s -> s.args().length / 8).sum();
+        }
+    }
+}
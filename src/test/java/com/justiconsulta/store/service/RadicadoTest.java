@@ -0,0 +1,69 @@
+package com.justiconsulta.store.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RadicadoTest {
+
+    private static final String RADICADO = "05001310300320190012300";
+
+    @Test
+    void acceptsExactlyTwentyThreeAsciiDigits() {
+        assertTrue(Radicado.isValid(RADICADO));
+        assertFalse(Radicado.isValid(null));
+        assertFalse(Radicado.isValid(RADICADO.substring(1)));
+        assertFalse(Radicado.isValid(RADICADO + "0"));
+        assertFalse(Radicado.isValid("05001-31030032019001230"));
+        // Non-ASCII digits are rejected, as with \d in a default (non-Unicode) regex
+        assertFalse(Radicado.isValid("٠٥٠٠١٣١٠٣٠٠٣٢٠١٩٠٠١٢٣٠٠"));
+    }
+
+    @Test
+    void isDigitsMatchesTheRegexItReplaced() {
+        assertTrue(Radicado.isDigits("128736452"));
+        assertFalse(Radicado.isDigits(""));
+        assertFalse(Radicado.isDigits(null));
+        assertFalse(Radicado.isDigits("12a"));
+
+        assertTrue(Radicado.isDigits("123", 3, 12));
+        assertTrue(Radicado.isDigits("123456789012", 3, 12));
+        assertFalse(Radicado.isDigits("12", 3, 12));
+        assertFalse(Radicado.isDigits("1234567890123", 3, 12));
+        assertFalse(Radicado.isDigits(null, 3, 12));
+    }
+
+    @Test
+    void parseRoundTripsIncludingLeadingZeros() {
+        Radicado radicado = Radicado.parse(RADICADO).orElseThrow();
+        assertEquals(5001L, radicado.high());
+        assertEquals(310300320190012300L, radicado.low());
+        assertEquals(RADICADO, radicado.toString());
+
+        String zeros = "00000000000000000000007";
+        assertEquals(zeros, Radicado.parse(zeros).orElseThrow().toString());
+        assertTrue(Radicado.parse("not a radicado").isEmpty());
+    }
+
+    @Test
+    void equalValuesAreEqualKeys() {
+        Radicado parsed = Radicado.parse(RADICADO).orElseThrow();
+        Radicado built = Radicado.of(5001L, 310300320190012300L);
+        assertEquals(parsed, built);
+        assertEquals(parsed.hashCode(), built.hashCode());
+        assertNotEquals(parsed, Radicado.parse("05001310300320190012301").orElseThrow());
+        assertNotEquals(Radicado.of(1, 0), Radicado.of(0, 1));
+    }
+
+    @Test
+    void ofRejectsOutOfRangeHalves() {
+        assertThrows(IllegalArgumentException.class, () -> Radicado.of(100_000L, 0));
+        assertThrows(IllegalArgumentException.class, () -> Radicado.of(-1, 0));
+        assertThrows(IllegalArgumentException.class, () -> Radicado.of(0, 1_000_000_000_000_000_000L));
+        assertEquals("9".repeat(Radicado.LENGTH), Radicado.of(99_999L, 999_999_999_999_999_999L).toString());
+    }
+}
@@ -0,0 +1,153 @@
+package com.justiconsulta.store.service;
+
+import com.justiconsulta.store.model.ReminderConfiguration;
+import com.justiconsulta.store.model.User;
+import com.justiconsulta.store.repository.ReminderConfigurationRepository;
+import com.justiconsulta.store.repository.UserLegalProcessRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReminderServiceTest {
+
+    private static final ZoneId BOGOTA = ZoneId.of("America/Bogota");
+
+    @Test
+    void nextDueAtIsTodaysSlotWhenItHasNotPassedYet() {
+        ReminderConfiguration config = config(9, 30);
+        assertEquals(at("2026-05-04T09:30"), ReminderService.nextDueAt(config, local("2026-05-04T08:00")));
+    }
+
+    @Test
+    void nextDueAtMovesToTomorrowOnceTodaysSlotHasPassed() {
+        ReminderConfiguration config = config(9, 30);
+        assertEquals(at("2026-05-05T09:30"), ReminderService.nextDueAt(config, local("2026-05-04T09:30")));
+        assertEquals(at("2026-05-05T09:30"), ReminderService.nextDueAt(config, local("2026-05-04T18:00")));
+    }
+
+    @Test
+    void nextDueAtWaitsFrequencyDaysAfterTheLastReminder() {
+        ReminderConfiguration config = config(9, 0);
+        config.setFrequencyDays(7);
+        config.setLastReminderSent(at("2026-05-04T09:00"));
+        assertEquals(at("2026-05-11T09:00"), ReminderService.nextDueAt(config, local("2026-05-04T09:01")));
+
+        // A zero frequency still waits until the next day
+        config.setFrequencyDays(0);
+        assertEquals(at("2026-05-05T09:00"), ReminderService.nextDueAt(config, local("2026-05-04T09:01")));
+    }
+
+    @Test
+    void nextDueAtUsesColombianLocalTimeRegardlessOfTheCallersZone() {
+        ReminderConfiguration config = config(9, 0);
+        // 13:00 UTC is 08:00 in Bogotá, so today's 09:00 slot is still ahead
+        ZonedDateTime utc = ZonedDateTime.parse("2026-05-04T13:00Z");
+        assertEquals(at("2026-05-04T09:00"), ReminderService.nextDueAt(config, utc));
+    }
+
+    @Test
+    void nextDueAtIsNullWhenDisabledOrOutsideTheAllowedHours() {
+        ReminderConfiguration disabled = config(9, 0);
+        disabled.setEnabled(false);
+        assertNull(ReminderService.nextDueAt(disabled, local("2026-05-04T08:00")));
+
+        ReminderConfiguration tooEarly = config(6, 0);
+        assertNull(ReminderService.nextDueAt(tooEarly, local("2026-05-04T05:00")));
+
+        ReminderConfiguration atEndHour = config(22, 0);
+        assertNull(ReminderService.nextDueAt(atEndHour, local("2026-05-04T08:00")));
+    }
+
+    @Test
+    void scheduledSlotOfAnOnTimeSendIsTheDueTimeItself() {
+        ReminderConfiguration config = config(9, 30);
+        assertEquals(at("2026-05-04T09:30"), ReminderService.scheduledSlot(config, at("2026-05-04T09:30")));
+    }
+
+    @Test
+    void scheduledSlotOfARetryIsTheOriginalSlot() {
+        ReminderConfiguration config = config(9, 30);
+        assertEquals(at("2026-05-04T09:30"), ReminderService.scheduledSlot(config, at("2026-05-04T10:15")));
+        // A retry pushed past midnight still belongs to the previous day's slot
+        assertEquals(at("2026-05-04T09:30"), ReminderService.scheduledSlot(config, at("2026-05-05T09:00")));
+    }
+
+    @Test
+    void concurrencyBoundsDispatchesOnVirtualThreads() {
+        ReminderConfigurationRepository configs = mock(ReminderConfigurationRepository.class);
+        UserLegalProcessRepository processes = mock(UserLegalProcessRepository.class);
+        EmailService emailService = mock(EmailService.class);
+        MockEnvironment environment = new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true");
+        ReminderService service = new ReminderService(configs, processes, emailService, new SimpleMeterRegistry(),
+                environment, 200, 2, 60, 15);
+
+        ZonedDateTime slot = ZonedDateTime.now(BOGOTA).truncatedTo(ChronoUnit.MINUTES);
+        List<ReminderConfiguration> due = new ArrayList<>();
+        List<Object[]> counts = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ReminderConfiguration config = config(slot.getHour(), slot.getMinute());
+            config.setId("config-" + i);
+            config.setNextDueAt(slot.toOffsetDateTime());
+            User user = new User();
+            user.setDocumentNumber("doc-" + i);
+            config.setUser(user);
+            due.add(config);
+            counts.add(new Object[]{"doc-" + i, 3L});
+        }
+        when(configs.findDueWithUser(any(), any())).thenReturn(due, List.of());
+        when(processes.countByUserDocumentNumbers(any())).thenReturn(counts);
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(10);
+            running.decrementAndGet();
+            return null;
+        }).when(emailService).sendActuationReminderEmail(any(), anyInt());
+
+        try {
+            service.processReminders();
+        } finally {
+            service.shutdown();
+        }
+
+        verify(configs, times(20)).markSent(any(), any(), any());
+        assertTrue(maxRunning.get() <= 2, "max concurrent dispatches: " + maxRunning.get());
+    }
+
+    private static ReminderConfiguration config(int hour, int minute) {
+        ReminderConfiguration config = new ReminderConfiguration();
+        config.setReminderHour(hour);
+        config.setReminderMinute(minute);
+        return config;
+    }
+
+    private static ZonedDateTime local(String dateTime) {
+        return ZonedDateTime.of(LocalDateTime.parse(dateTime), BOGOTA);
+    }
+
+    private static OffsetDateTime at(String dateTime) {
+        return local(dateTime).toOffsetDateTime();
+    }
+}
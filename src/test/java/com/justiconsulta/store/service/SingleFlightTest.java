@@ -0,0 +1,170 @@
+package com.justiconsulta.store.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallersForSameKeyShareOneCall() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> leader = pool.submit(() -> flight.execute("k", () -> {
+                calls.incrementAndGet();
+                leaderStarted.countDown();
+                await(release);
+                return "value";
+            }));
+            assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+            Future<String> f1 = pool.submit(() -> flight.execute("k", () -> "other"));
+            Future<String> f2 = pool.submit(() -> flight.execute("k", () -> "other"));
+            // Followers only register in sharedCount once they have joined the leader's future
+            waitUntil(() -> flight.sharedCount() == 2);
+            assertEquals(1, flight.inFlightCount());
+
+            release.countDown();
+            assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+            assertEquals("value", f1.get(5, TimeUnit.SECONDS));
+            assertEquals("value", f2.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+        assertEquals(0, flight.inFlightCount());
+    }
+
+    @Test
+    void differentKeysDoNotCoalesce() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        assertEquals("a", flight.execute("a", () -> "a"));
+        assertEquals("b", flight.execute("b", () -> "b"));
+        assertEquals(0, flight.sharedCount());
+    }
+
+    @Test
+    void keyIsReleasedAfterCompletionSoNextCallRunsAgain() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        flight.execute("k", calls::incrementAndGet);
+        int second = flight.execute("k", calls::incrementAndGet);
+        assertEquals(2, second);
+        assertEquals(0, flight.inFlightCount());
+    }
+
+    @Test
+    void failureIsPropagatedToLeaderAndWaitersThenKeyIsReleased() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("upstream down");
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = pool.submit(() -> flight.execute("k", () -> {
+                leaderStarted.countDown();
+                await(release);
+                throw failure;
+            }));
+            assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+            Future<String> follower = pool.submit(() -> flight.execute("k", () -> "unused"));
+            waitUntil(() -> flight.sharedCount() == 1);
+
+            release.countDown();
+            assertSame(failure, causeOf(leader));
+            // The waiter gets the same exception unwrapped, not a CompletionException
+            assertSame(failure, causeOf(follower));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(0, flight.inFlightCount());
+        assertEquals("retry", flight.execute("k", () -> "retry"));
+    }
+
+    @Test
+    void asyncCallersForSameKeyShareOneFuture() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> first = flight.executeAsync("k", () -> {
+            calls.incrementAndGet();
+            return upstream;
+        });
+        CompletableFuture<String> second = flight.executeAsync("k", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        assertFalse(first.isDone());
+        assertSame(first, second);
+
+        upstream.complete("value");
+        assertEquals("value", second.join());
+        assertEquals(1, calls.get());
+        assertEquals(1, flight.sharedCount());
+        assertEquals(0, flight.inFlightCount());
+    }
+
+    @Test
+    void asyncSupplierThatThrowsCompletesExceptionallyAndReleasesKey() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> result = flight.executeAsync("k", () -> {
+            throw new IllegalStateException("rejected");
+        });
+
+        CompletionException e = assertThrows(CompletionException.class, result::join);
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        assertEquals(0, flight.inFlightCount());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not reached within 5s");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static Throwable causeOf(Future<?> future) throws InterruptedException {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            throw new AssertionError("expected failure");
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (TimeoutException e) {
+            throw new AssertionError("timed out", e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.justiconsulta.store.service.impl;
+
+import com.justiconsulta.store.service.impl.LegalProcessServiceImpl.HistoryCursor;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistoryCursorTest {
+
+    private static final UUID ID = UUID.fromString("3f2b8c1e-5d4a-4f6b-9c0d-1e2f3a4b5c6d");
+
+    @Test
+    void roundTripsDateAndId() {
+        HistoryCursor cursor = new HistoryCursor(OffsetDateTime.parse("2026-03-14T09:26:53.589793-05:00"), ID);
+        assertEquals(cursor, HistoryCursor.decode(cursor.encode()).orElseThrow());
+    }
+
+    @Test
+    void encodesAsUnpaddedUrlSafeBase64() {
+        String encoded = new HistoryCursor(OffsetDateTime.parse("2026-01-01T00:00Z"), ID).encode();
+        assertFalse(encoded.contains("="));
+        assertFalse(encoded.contains("+"));
+        assertFalse(encoded.contains("/"));
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertTrue(HistoryCursor.decode("not base64!").isEmpty());
+        assertTrue(HistoryCursor.decode(encode("2026-01-01T00:00Z")).isEmpty());
+        assertTrue(HistoryCursor.decode(encode("yesterday|" + ID)).isEmpty());
+        assertTrue(HistoryCursor.decode(encode("2026-01-01T00:00Z|not-a-uuid")).isEmpty());
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}